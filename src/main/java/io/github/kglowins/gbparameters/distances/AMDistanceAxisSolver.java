@@ -0,0 +1,234 @@
+package io.github.kglowins.gbparameters.distances;
+
+import io.github.kglowins.gbparameters.representation.InterfaceMatrix;
+import io.github.kglowins.gbparameters.representation.Quaternion;
+import io.github.kglowins.gbparameters.utils.SaferMath;
+
+/*
+ * For twist and symmetric boundaries the first plane normal m1' coincides with the misorientation axis a
+ * and -m2' = M'^T m1' = a, so their AM distance to B = (M, m1, m2) is
+ *
+ *     omega(q.a)^2 + (theta1^2 + theta2^2) / 2,   theta1 = angle(m1, a),  theta2 = angle(-m2, a),
+ *
+ * where q is the vector part of the quaternion of M and the misorientation term is already minimized
+ * over the rotation angle. What remains is a minimization over unit vectors a, which is done by
+ * Riemannian gradient descent with Barzilai-Borwein steps from two starting axes.
+ */
+abstract class AMDistanceAxisSolver {
+
+	private static final int MAX_ITERATIONS = 500;
+	private static final double GRADIENT_TOLERANCE = 1e-8d;
+	private static final double SUFFICIENT_DECREASE = 1e-4d;
+	private static final double MIN_STEP = 1e-16d;
+	private static final double MAX_ROTATION = 0.5d;
+	private static final double SMALL = 1e-8d;
+
+	final double q0;
+	final double qx, qy, qz;
+
+	private final double m1x, m1y, m1z;
+	private final double ux, uy, uz;
+
+	private double bestValue;
+	private double bestX, bestY, bestZ;
+
+	private int evaluations;
+	private int iterations;
+
+	// angles at the axis last passed to value()
+	private double lastOmega;
+	private double lastTheta1;
+	private double lastTheta2;
+
+	AMDistanceAxisSolver(InterfaceMatrix B) {
+		Quaternion q = new Quaternion();
+		q.set(B.M());
+		q0 = q.q0();
+		qx = q.q1();
+		qy = q.q2();
+		qz = q.q3();
+
+		m1x = B.m1().x();
+		m1y = B.m1().y();
+		m1z = B.m1().z();
+
+		ux = -B.m2().x();
+		uy = -B.m2().y();
+		uz = -B.m2().z();
+
+		bestValue = Double.NaN;
+	}
+
+	// misorientation angle of the nearest boundary with axis a, as a function of c = q.a
+	abstract double omega(double c);
+
+	// derivative of omega(c)^2 with respect to c, given omega = omega(c)
+	abstract double omegaSquaredDerivative(double c, double omega);
+
+	// squared AM distance, on the same scale as the values of the AMDistanceTo* objectives
+	public final double minimize() {
+		if (!Double.isNaN(bestValue)) {
+			return bestValue;
+		}
+		bestValue = Double.MAX_VALUE;
+
+		// descents from the midpoint of m1 and -m2 and from the best of the other candidate axes
+		double[][] seeds = new double[4][];
+		seeds[0] = new double[]{m1x, m1y, m1z};
+		seeds[1] = new double[]{ux, uy, uz};
+
+		double qNorm = Math.sqrt(qx * qx + qy * qy + qz * qz);
+		if (qNorm > SMALL) {
+			seeds[2] = new double[]{qx / qNorm, qy / qNorm, qz / qNorm};
+			seeds[3] = new double[]{-qx / qNorm, -qy / qNorm, -qz / qNorm};
+		}
+
+		double[] best = null;
+		double bestSeedValue = Double.MAX_VALUE;
+		for (double[] seed : seeds) {
+			if (seed != null) {
+				double value = value(seed[0], seed[1], seed[2]);
+				if (value < bestSeedValue) {
+					bestSeedValue = value;
+					best = seed;
+				}
+			}
+		}
+		descend(best[0], best[1], best[2]);
+
+		double sx = m1x + ux;
+		double sy = m1y + uy;
+		double sz = m1z + uz;
+		double sNorm = Math.sqrt(sx * sx + sy * sy + sz * sz);
+		if (sNorm > SMALL) {
+			descend(sx / sNorm, sy / sNorm, sz / sNorm);
+		}
+		return bestValue;
+	}
+
+	// calls of value() and descent steps made by minimize()
+	public final int evaluations() {
+		return evaluations;
+	}
+
+	public final int iterations() {
+		return iterations;
+	}
+
+	// common misorientation axis and first plane normal of the nearest boundary
+	final double axisX() {
+		minimize();
+		return bestX;
+	}
+
+	final double axisY() {
+		minimize();
+		return bestY;
+	}
+
+	final double axisZ() {
+		minimize();
+		return bestZ;
+	}
+
+	final double value(double ax, double ay, double az) {
+		evaluations++;
+		lastOmega = omega(qx * ax + qy * ay + qz * az);
+		lastTheta1 = SaferMath.acos(m1x * ax + m1y * ay + m1z * az);
+		lastTheta2 = SaferMath.acos(ux * ax + uy * ay + uz * az);
+		return lastOmega * lastOmega + 0.5d * (lastTheta1 * lastTheta1 + lastTheta2 * lastTheta2);
+	}
+
+	// Omega / sin(Omega / 2), which tends to 2 as Omega goes to 0
+	static double angleOverHalfSine(double angle) {
+		return angle < SMALL ? 2d : angle / Math.sin(0.5d * angle);
+	}
+
+	private void descend(double x, double y, double z) {
+		double[] a = {x, y, z};
+		double[] g = new double[3];
+		double[] trial = new double[3];
+		double[] trialG = new double[3];
+
+		double f = value(a[0], a[1], a[2]);
+		double gNormSq = gradient(a, g);
+		double step = 1d;
+
+		for (int iteration = 0; iteration < MAX_ITERATIONS && gNormSq > GRADIENT_TOLERANCE * GRADIENT_TOLERANCE;
+			 iteration++) {
+			iterations++;
+
+			step = Math.min(step, MAX_ROTATION / Math.sqrt(gNormSq));
+
+			double trialF;
+			while (true) {
+				retract(a, g, step, trial);
+				trialF = value(trial[0], trial[1], trial[2]);
+				if (trialF <= f - SUFFICIENT_DECREASE * step * gNormSq || step < MIN_STEP) {
+					break;
+				}
+				step *= 0.5d;
+			}
+			if (!(trialF < f)) {
+				break;
+			}
+
+			double trialGNormSq = gradient(trial, trialG);
+
+			double ss = 0d;
+			double sy = 0d;
+			for (int i = 0; i < 3; i++) {
+				double s = trial[i] - a[i];
+				ss += s * s;
+				sy += s * (trialG[i] - g[i]);
+			}
+			step = sy > 0d ? ss / sy : 1d;
+
+			System.arraycopy(trial, 0, a, 0, 3);
+			System.arraycopy(trialG, 0, g, 0, 3);
+			f = trialF;
+			gNormSq = trialGNormSq;
+		}
+
+		if (f < bestValue) {
+			bestValue = f;
+			bestX = a[0];
+			bestY = a[1];
+			bestZ = a[2];
+		}
+	}
+
+	// Riemannian gradient at the axis a last passed to value(), i.e., the Euclidean one projected onto the
+	// tangent plane; returns its squared norm
+	private double gradient(double[] a, double[] g) {
+		double c = qx * a[0] + qy * a[1] + qz * a[2];
+		double d1 = m1x * a[0] + m1y * a[1] + m1z * a[2];
+		double d2 = ux * a[0] + uy * a[1] + uz * a[2];
+
+		double dOmega = omegaSquaredDerivative(c, lastOmega);
+		double k1 = angleOverSine(lastTheta1);
+		double k2 = angleOverSine(lastTheta2);
+
+		g[0] = dOmega * (qx - c * a[0]) - k1 * (m1x - d1 * a[0]) - k2 * (ux - d2 * a[0]);
+		g[1] = dOmega * (qy - c * a[1]) - k1 * (m1y - d1 * a[1]) - k2 * (uy - d2 * a[1]);
+		g[2] = dOmega * (qz - c * a[2]) - k1 * (m1z - d1 * a[2]) - k2 * (uz - d2 * a[2]);
+
+		return g[0] * g[0] + g[1] * g[1] + g[2] * g[2];
+	}
+
+	// theta / sin(theta); the tangent vector it multiplies vanishes where the sine does
+	private static double angleOverSine(double angle) {
+		double sin = Math.sin(angle);
+		return sin < SMALL ? 1d : angle / sin;
+	}
+
+	private static void retract(double[] a, double[] g, double step, double[] result) {
+		double x = a[0] - step * g[0];
+		double y = a[1] - step * g[1];
+		double z = a[2] - step * g[2];
+		double norm = Math.sqrt(x * x + y * y + z * z);
+		result[0] = x / norm;
+		result[1] = y / norm;
+		result[2] = z / norm;
+	}
+}
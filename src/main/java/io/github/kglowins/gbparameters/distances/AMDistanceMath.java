@@ -0,0 +1,300 @@
+package io.github.kglowins.gbparameters.distances;
+
+import io.github.kglowins.gbparameters.representation.InterfaceMatrix;
+import io.github.kglowins.gbparameters.utils.SaferMath;
+
+import static java.lang.Math.PI;
+import static org.apache.commons.math3.util.FastMath.atan;
+import static org.apache.commons.math3.util.FastMath.cos;
+import static org.apache.commons.math3.util.FastMath.sin;
+import static org.apache.commons.math3.util.FastMath.tan;
+
+/*
+ * Angle normalizations of UnitVector.set(zenith, azimuth) and AxisAngle.set(axis, angle) on primitives, and
+ * the derivatives of the AM-distance objectives. With R = R(n, w) = c I + s [n]x + (1 - c) n n^T,
+ *
+ *     tr(R M^T) = c tr(M) + s n.v + (1 - c) n^T M n,            v = (M21 - M12, M02 - M20, M10 - M01),
+ *     x^T R y   = c x.y + s n.(y x x) + (1 - c) (x.n) (n.y),
+ *
+ * and d(omega^2) = -(omega / sin(omega)) d tr(R M^T), d(theta^2 / 2) = -(theta / sin(theta)) d cos(theta).
+ */
+final class AMDistanceMath {
+
+	private static final double TWO_PI = 2d * PI;
+
+	private static final double EPS = 1e-5d;
+
+	private static final double SMALL = 1e-12d;
+
+	private AMDistanceMath() {
+	}
+
+	static double normalizedZenith(double zenith) {
+		double Z = zenith;
+
+		if (Math.abs(Z) >= TWO_PI) Z = Math.IEEEremainder(Z, TWO_PI);
+		if (Z < 0d) Z = -Z;
+		if (Z > PI) Z = TWO_PI - Z;
+
+		return Z;
+	}
+
+	static double normalizedAzimuth(double zenith, double azimuth) {
+		double Z = zenith;
+		double A = azimuth;
+
+		if (Math.abs(A) >= TWO_PI) A = Math.IEEEremainder(A, TWO_PI);
+		if (A < 0d) A += TWO_PI;
+
+		if (Math.abs(Z) >= TWO_PI) Z = Math.IEEEremainder(Z, TWO_PI);
+
+		if (Z < 0d) {
+			Z = -Z;
+			A += PI;
+			if (A >= TWO_PI) A = Math.IEEEremainder(A, TWO_PI);
+		}
+
+		if (Z > PI) {
+			A += PI;
+			if (A >= TWO_PI) A = Math.IEEEremainder(A, TWO_PI);
+		}
+
+		return A;
+	}
+
+	// rotation angle in [0, PI]; the axis has to be negated if the angle is reflected
+	static double normalizedAngle(double angle) {
+		double w = angle;
+
+		if (Math.abs(w) > TWO_PI) w = Math.IEEEremainder(w, TWO_PI);
+		if (w < 0d) w += TWO_PI;
+		if (w > PI) w = TWO_PI - w;
+
+		return w;
+	}
+
+	static boolean isAxisReflected(double angle) {
+		double w = angle;
+
+		if (Math.abs(w) > TWO_PI) w = Math.IEEEremainder(w, TWO_PI);
+		if (w < 0d) w += TWO_PI;
+
+		return w > PI;
+	}
+
+	// the factor by which UnitVector.transform and UnitVector.transposedTransform rescale their result
+	static double renormalization(double x, double y, double z) {
+		double norm = Math.sqrt(x * x + y * y + z * z);
+		return Math.abs(norm - 1d) > EPS ? norm : 1d;
+	}
+
+	// row-major entries of B.M()
+	static double[] entries(InterfaceMatrix B) {
+		return new double[]{
+			B.M().e00(), B.M().e01(), B.M().e02(),
+			B.M().e10(), B.M().e11(), B.M().e12(),
+			B.M().e20(), B.M().e21(), B.M().e22()
+		};
+	}
+
+	static double[] vector(double x, double y, double z) {
+		return new double[]{x, y, z};
+	}
+
+	// the unit vector with given zenith and azimuth and its derivatives with respect to both
+	static double[][] direction(double zenith, double azimuth) {
+		double sinZ = Math.sin(zenith);
+		double cosZ = Math.cos(zenith);
+		double sinA = Math.sin(azimuth);
+		double cosA = Math.cos(azimuth);
+		return new double[][]{
+			{sinZ * cosA, sinZ * sinA, cosZ},
+			{cosZ * cosA, cosZ * sinA, -sinZ},
+			{-sinZ * sinA, sinZ * cosA, 0d}
+		};
+	}
+
+	/*
+	 * Gradient of omega^2 + (theta1^2 + theta2^2) / 2 with respect to (zenith, azimuth, angle) for M' = R(n, angle),
+	 * m1' = sign n and m2' = -sign n, i.e., for the twist (any angle) and symmetric (angle PI) objectives.
+	 */
+	static double[] axialGradient(double[] M, double[] m1, double[] m2,
+								  double zenith, double azimuth, double angle, double sign) {
+		double[][] n = direction(zenith, azimuth);
+		double c = Math.cos(angle);
+		double s = Math.sin(angle);
+
+		double kOmega = angleOverSine(SaferMath.acos(0.5d * (trace(M, n[0], c, s) - 1d)));
+		double k1 = angleOverSine(SaferMath.acos(sign * dot(m1, n[0])));
+		double k2 = angleOverSine(SaferMath.acos(-sign * dot(m2, n[0])));
+
+		double[] byAxis = traceByAxis(M, n[0], c, s);
+		double[] dfdn = new double[3];
+		for (int i = 0; i < 3; i++) {
+			dfdn[i] = -kOmega * byAxis[i] - sign * k1 * m1[i] + sign * k2 * m2[i];
+		}
+		return new double[]{dot(dfdn, n[1]), dot(dfdn, n[2]), -kOmega * traceByAngle(M, n[0], c, s)};
+	}
+
+	/*
+	 * Gradient of omega^2 + (theta1^2 + theta2^2) / 2 with respect to (zenith, azimuth, angle, m1' azimuth)
+	 * for the tilt objectives, where m1' is perpendicular to n and its zenith is
+	 * atan(-1 / (tan(Z) cos(A - m1' azimuth))) with Z and A the zenith and azimuth of n.
+	 */
+	static double[] tiltGradient(double[] M, double[] m1, double[] m2,
+								 double zenith, double azimuth, double angle, double m1primAzimuth) {
+		double[][] n = direction(zenith, azimuth);
+		double c = Math.cos(angle);
+		double s = Math.sin(angle);
+
+		double nx = n[0][0];
+		double ny = n[0][1];
+		double nz = n[0][2];
+		double rhoSq = nx * nx + ny * ny;
+
+		// m1' and the derivatives of its zenith
+		double Z = SaferMath.acos(nz);
+		double A = SaferMath.atan2(ny, nx);
+		double tanZ = tan(Z);
+		double cosDiff = cos(A) * cos(m1primAzimuth) + sin(A) * sin(m1primAzimuth);
+		double sinDiff = sin(A) * cos(m1primAzimuth) - cos(A) * sin(m1primAzimuth);
+		double g = tanZ * cosDiff;
+		double zeta = atan(-1d / g);
+		double dZetaDg = 1d / (1d + g * g);
+
+		double cosZ = Math.cos(Z);
+		double sinZ = Math.sin(Z);
+		double dgdZ = cosDiff / (cosZ * cosZ);
+		double dgdA = -tanZ * sinDiff;
+		double dgdPhi = tanZ * sinDiff;
+
+		double[] dZetaDn = new double[3];
+		if (sinZ > SMALL && rhoSq > SMALL) {
+			dZetaDn[0] = dZetaDg * dgdA * (-ny / rhoSq);
+			dZetaDn[1] = dZetaDg * dgdA * (nx / rhoSq);
+			dZetaDn[2] = dZetaDg * dgdZ * (-1d / sinZ);
+		}
+		double dZetaDPhi = dZetaDg * dgdPhi;
+
+		double sinZeta = Math.sin(zeta);
+		double cosZeta = Math.cos(zeta);
+		double cosPhi = Math.cos(m1primAzimuth);
+		double sinPhi = Math.sin(m1primAzimuth);
+		double[] m1prim = {sinZeta * cosPhi, sinZeta * sinPhi, cosZeta};
+		double[] dm1primDZeta = {cosZeta * cosPhi, cosZeta * sinPhi, -sinZeta};
+		double[] dm1primDPhi = {-sinZeta * sinPhi, sinZeta * cosPhi, 0d};
+
+		// m2' = -R^T m1'
+		double[] Rm2 = rotate(n[0], c, s, m2);
+		double[] m2prim = rotate(n[0], c, -s, m1prim);
+		for (int i = 0; i < 3; i++) {
+			m2prim[i] = -m2prim[i];
+		}
+
+		double kOmega = angleOverSine(SaferMath.acos(0.5d * (trace(M, n[0], c, s) - 1d)));
+		double k1 = angleOverSine(SaferMath.acos(dot(m1, m1prim)));
+		double k2 = angleOverSine(SaferMath.acos(dot(m2, m2prim)));
+
+		// coefficient of d m1'
+		double[] h = new double[3];
+		for (int i = 0; i < 3; i++) {
+			h[i] = -k1 * m1[i] + k2 * Rm2[i];
+		}
+		double hZeta = dot(h, dm1primDZeta);
+
+		double[] traceByAxis = traceByAxis(M, n[0], c, s);
+		double[] bilinearByAxis = bilinearByAxis(m1prim, n[0], c, s, m2);
+		double[] dfdn = new double[3];
+		for (int i = 0; i < 3; i++) {
+			dfdn[i] = -kOmega * traceByAxis[i] + k2 * bilinearByAxis[i] + hZeta * dZetaDn[i];
+		}
+
+		return new double[]{
+			dot(dfdn, n[1]),
+			dot(dfdn, n[2]),
+			-kOmega * traceByAngle(M, n[0], c, s) + k2 * bilinearByAngle(m1prim, n[0], c, s, m2),
+			hZeta * dZetaDPhi + dot(h, dm1primDPhi)
+		};
+	}
+
+	// theta / sin(theta), which tends to 1 as theta goes to 0
+	static double angleOverSine(double angle) {
+		double sin = Math.sin(angle);
+		if (angle < SMALL) {
+			return 1d;
+		}
+		return angle / Math.max(sin, SMALL);
+	}
+
+	static double dot(double[] a, double[] b) {
+		return a[0] * b[0] + a[1] * b[1] + a[2] * b[2];
+	}
+
+	// R(n, w) y for c = cos(w), s = sin(w)
+	static double[] rotate(double[] n, double c, double s, double[] y) {
+		double ny = dot(n, y);
+		return new double[]{
+			c * y[0] + s * (n[1] * y[2] - n[2] * y[1]) + (1d - c) * ny * n[0],
+			c * y[1] + s * (n[2] * y[0] - n[0] * y[2]) + (1d - c) * ny * n[1],
+			c * y[2] + s * (n[0] * y[1] - n[1] * y[0]) + (1d - c) * ny * n[2]
+		};
+	}
+
+	static double trace(double[] M, double[] n, double c, double s) {
+		return c * (M[0] + M[4] + M[8]) + s * dot(n, skew(M)) + (1d - c) * quadratic(M, n);
+	}
+
+	static double[] traceByAxis(double[] M, double[] n, double c, double s) {
+		double[] v = skew(M);
+		double[] result = new double[3];
+		for (int i = 0; i < 3; i++) {
+			double symmetric = 0d;
+			for (int j = 0; j < 3; j++) {
+				symmetric += (M[3 * i + j] + M[3 * j + i]) * n[j];
+			}
+			result[i] = s * v[i] + (1d - c) * symmetric;
+		}
+		return result;
+	}
+
+	static double traceByAngle(double[] M, double[] n, double c, double s) {
+		return -s * (M[0] + M[4] + M[8]) + c * dot(n, skew(M)) + s * quadratic(M, n);
+	}
+
+	static double[] bilinearByAxis(double[] x, double[] n, double c, double s, double[] y) {
+		double[] yx = cross(y, x);
+		double ny = dot(n, y);
+		double xn = dot(x, n);
+		return new double[]{
+			s * yx[0] + (1d - c) * (ny * x[0] + xn * y[0]),
+			s * yx[1] + (1d - c) * (ny * x[1] + xn * y[1]),
+			s * yx[2] + (1d - c) * (ny * x[2] + xn * y[2])
+		};
+	}
+
+	static double bilinearByAngle(double[] x, double[] n, double c, double s, double[] y) {
+		return -s * dot(x, y) + c * dot(n, cross(y, x)) + s * dot(n, y) * dot(x, n);
+	}
+
+	private static double[] skew(double[] M) {
+		return new double[]{M[7] - M[5], M[2] - M[6], M[3] - M[1]};
+	}
+
+	private static double quadratic(double[] M, double[] n) {
+		double result = 0d;
+		for (int i = 0; i < 3; i++) {
+			for (int j = 0; j < 3; j++) {
+				result += n[i] * M[3 * i + j] * n[j];
+			}
+		}
+		return result;
+	}
+
+	private static double[] cross(double[] a, double[] b) {
+		return new double[]{
+			a[1] * b[2] - a[2] * b[1],
+			a[2] * b[0] - a[0] * b[2],
+			a[0] * b[1] - a[1] * b[0]
+		};
+	}
+}
@@ -1,51 +1,111 @@
 package io.github.kglowins.gbparameters.distances;
 
-import io.github.kglowins.gbparameters.representation.AxisAngle;
 import io.github.kglowins.gbparameters.representation.InterfaceMatrix;
-import io.github.kglowins.gbparameters.representation.Matrix3x3;
 import io.github.kglowins.gbparameters.utils.SaferMath;
-import io.github.kglowins.gbparameters.representation.UnitVector;
 import org.apache.commons.math3.analysis.MultivariateFunction;
+import org.apache.commons.math3.analysis.MultivariateVectorFunction;
 
+import static io.github.kglowins.gbparameters.distances.AMDistanceMath.axialGradient;
+import static io.github.kglowins.gbparameters.distances.AMDistanceMath.entries;
+import static io.github.kglowins.gbparameters.distances.AMDistanceMath.normalizedAzimuth;
+import static io.github.kglowins.gbparameters.distances.AMDistanceMath.normalizedZenith;
+import static io.github.kglowins.gbparameters.distances.AMDistanceMath.renormalization;
+import static io.github.kglowins.gbparameters.distances.AMDistanceMath.vector;
 import static java.lang.Math.PI;
 
+
 public final class AMDistanceToSymmetricNegativeAxis implements MultivariateFunction {
 
-	private final InterfaceMatrix B;
+	private static final double COS_PI = Math.cos(PI);
+	private static final double SIN_PI = Math.sin(PI);
+
+	private final double b00, b01, b02, b10, b11, b12, b20, b21, b22;
+	private final double m1x, m1y, m1z;
+	private final double m2x, m2y, m2z;
+
+	// the same, for the gradient
+	private final double[] M;
+	private final double[] m1;
+	private final double[] m2;
 
 	public AMDistanceToSymmetricNegativeAxis(InterfaceMatrix B) {
-		this.B = B;
+		b00 = B.M().e00(); b01 = B.M().e01(); b02 = B.M().e02();
+		b10 = B.M().e10(); b11 = B.M().e11(); b12 = B.M().e12();
+		b20 = B.M().e20(); b21 = B.M().e21(); b22 = B.M().e22();
+		m1x = B.m1().x(); m1y = B.m1().y(); m1z = B.m1().z();
+		m2x = B.m2().x(); m2y = B.m2().y(); m2z = B.m2().z();
+
+		M = entries(B);
+		m1 = vector(m1x, m1y, m1z);
+		m2 = vector(m2x, m2y, m2z);
 	}
 
 	@Override
 	public double value(double[] arg) {
 
 		// misorientation M' axis
-		UnitVector n = new UnitVector();
-		n.set(arg[0], arg[1]);
-				
-		// M' matrix		
-		AxisAngle aa = new AxisAngle();
-		aa.set(n, PI);
-				
-		Matrix3x3 Mprim = new Matrix3x3();
-		Mprim.set(aa);
-					
-		// M' = R M
-		Matrix3x3 R = new Matrix3x3(Mprim);
-		R.timesTransposed(B.M());
-				
-		double omega = SaferMath.acos(0.5 * (R.tr() - 1));
-
-		// m1' = - axis(R) 
-		UnitVector m1prim = new UnitVector(aa.axis());
-		UnitVector m2prim = new UnitVector(aa.axis());
-		m2prim.transposedTransform(Mprim);
-		m1prim.negate();
-		
-		double theta1 = SaferMath.acos(B.m1().dot(m1prim));
-		double theta2 = SaferMath.acos(B.m2().dot(m2prim));
-		
+		double zenith = normalizedZenith(arg[0]);
+		double azimuth = normalizedAzimuth(arg[0], arg[1]);
+		double sinZenith = Math.sin(zenith);
+		double nx = Math.cos(azimuth) * sinZenith;
+		double ny = Math.sin(azimuth) * sinZenith;
+		double nz = Math.cos(zenith);
+
+		// M' matrix
+		double ax = nx;
+		double ay = ny;
+		double az = nz;
+
+		double c = COS_PI;
+		double s = SIN_PI;
+		double oneMinC = 1d - c;
+
+		double xyBra = ax * ay * oneMinC;
+		double xzBra = ax * az * oneMinC;
+		double yzBra = ay * az * oneMinC;
+
+		double e00 = c + ax * ax * oneMinC;
+		double e01 = xyBra - az * s;
+		double e02 = xzBra + ay * s;
+		double e10 = xyBra + az * s;
+		double e11 = c + ay * ay * oneMinC;
+		double e12 = yzBra - ax * s;
+		double e20 = xzBra - ay * s;
+		double e21 = yzBra + ax * s;
+		double e22 = c + az * az * oneMinC;
+
+		// tr(M' M^T)
+		double tr = (e00 * b00 + e01 * b01 + e02 * b02)
+			+ (e10 * b10 + e11 * b11 + e12 * b12)
+			+ (e20 * b20 + e21 * b21 + e22 * b22);
+
+		double omega = SaferMath.acos(0.5 * (tr - 1));
+
+		// m1' = - axis(R), m2' = -M'^T m1'
+		double m1px = -ax;
+		double m1py = -ay;
+		double m1pz = -az;
+
+		double m2px = e00 * ax + e10 * ay + e20 * az;
+		double m2py = e01 * ax + e11 * ay + e21 * az;
+		double m2pz = e02 * ax + e12 * ay + e22 * az;
+		double norm = renormalization(m2px, m2py, m2pz);
+		m2px = m2px / norm;
+		m2py = m2py / norm;
+		m2pz = m2pz / norm;
+
+		double theta1 = SaferMath.acos(m1x * m1px + m1y * m1py + m1z * m1pz);
+		double theta2 = SaferMath.acos(m2x * m2px + m2y * m2py + m2z * m2pz);
+
 		return omega * omega + 0.5 * (theta1 * theta1 + theta2 * theta2);
 	}
+
+	public MultivariateVectorFunction gradient() {
+		return this::gradient;
+	}
+
+	public double[] gradient(double[] arg) {
+		double[] gradient = axialGradient(M, m1, m2, arg[0], arg[1], PI, -1d);
+		return new double[]{gradient[0], gradient[1]};
+	}
 }
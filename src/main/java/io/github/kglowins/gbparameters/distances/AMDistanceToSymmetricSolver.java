@@ -0,0 +1,43 @@
+package io.github.kglowins.gbparameters.distances;
+
+import io.github.kglowins.gbparameters.representation.AxisAngle;
+import io.github.kglowins.gbparameters.representation.InterfaceMatrix;
+import io.github.kglowins.gbparameters.representation.Matrix3x3;
+import io.github.kglowins.gbparameters.representation.UnitVector;
+import io.github.kglowins.gbparameters.utils.SaferMath;
+
+import static java.lang.Math.PI;
+
+/*
+ * Minimum of AMDistanceToSymmetricPositiveAxis and AMDistanceToSymmetricNegativeAxis. The rotation angle
+ * is fixed at PI, so cos(omega / 2) = |q.a|.
+ */
+public final class AMDistanceToSymmetricSolver extends AMDistanceAxisSolver {
+
+	public AMDistanceToSymmetricSolver(InterfaceMatrix B) {
+		super(B);
+	}
+
+	@Override
+	double omega(double c) {
+		return 2d * SaferMath.acos(Math.abs(c));
+	}
+
+	@Override
+	double omegaSquaredDerivative(double c, double omega) {
+		return -4d * Math.signum(c) * angleOverHalfSine(omega);
+	}
+
+	public InterfaceMatrix nearest() {
+		UnitVector axis = new UnitVector();
+		axis.set(axisX(), axisY(), axisZ());
+
+		AxisAngle aa = new AxisAngle();
+		aa.set(axis, PI);
+
+		Matrix3x3 M = new Matrix3x3();
+		M.set(aa);
+
+		return new InterfaceMatrix(M, axis);
+	}
+}
@@ -0,0 +1,60 @@
+package io.github.kglowins.gbparameters.distances;
+
+import io.github.kglowins.gbparameters.representation.AxisAngle;
+import io.github.kglowins.gbparameters.representation.InterfaceMatrix;
+import io.github.kglowins.gbparameters.representation.Matrix3x3;
+import io.github.kglowins.gbparameters.representation.UnitVector;
+import io.github.kglowins.gbparameters.utils.SaferMath;
+
+import static java.lang.Math.PI;
+
+/*
+ * Minimum of AMDistanceToTwistPositiveAxis and AMDistanceToTwistNegativeAxis. For a twist axis a the
+ * rotation angle w enters only through the misorientation term, and cos(omega / 2) = |q0 cos(w / 2) + q.a sin(w / 2)|
+ * is maximal at tan(w / 2) = q.a / q0, which leaves cos(omega / 2) = sqrt(q0^2 + (q.a)^2).
+ */
+public final class AMDistanceToTwistSolver extends AMDistanceAxisSolver {
+
+	public AMDistanceToTwistSolver(InterfaceMatrix B) {
+		super(B);
+	}
+
+	@Override
+	double omega(double c) {
+		return 2d * SaferMath.acos(Math.sqrt(q0 * q0 + c * c));
+	}
+
+	@Override
+	double omegaSquaredDerivative(double c, double omega) {
+		double s = Math.sqrt(q0 * q0 + c * c);
+		if (s == 0d) {
+			return 0d;
+		}
+		return -4d * angleOverHalfSine(omega) * c / s;
+	}
+
+	// rotation angle of the nearest twist boundary, in (-PI, PI]
+	public double twistAngle() {
+		double c = qx * axisX() + qy * axisY() + qz * axisZ();
+		double w = 2d * Math.atan2(c, q0);
+		if (w > PI) {
+			w -= 2d * PI;
+		} else if (w <= -PI) {
+			w += 2d * PI;
+		}
+		return w;
+	}
+
+	public InterfaceMatrix nearest() {
+		UnitVector axis = new UnitVector();
+		axis.set(axisX(), axisY(), axisZ());
+
+		AxisAngle aa = new AxisAngle();
+		aa.set(axis, twistAngle());
+
+		Matrix3x3 M = new Matrix3x3();
+		M.set(aa);
+
+		return new InterfaceMatrix(M, axis);
+	}
+}
@@ -0,0 +1,234 @@
+package io.github.kglowins.gbparameters.distances;
+
+import io.github.kglowins.gbparameters.enums.PointGroup;
+import io.github.kglowins.gbparameters.representation.InterfaceMatrix;
+import io.github.kglowins.gbparameters.representation.Matrix3x3;
+import io.github.kglowins.gbparameters.representation.UnitVector;
+import io.github.kglowins.gbparameters.utils.SaferMath;
+import io.github.kglowins.gbparameters.utils.SymmetryTable;
+import io.github.kglowins.gbparameters.utils.Transformations;
+
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Boundaries stored column-wise: one double[] per entry of M and per coordinate of m1 and m2, for AM distances
+ * from one query to many boundaries without creating an InterfaceMatrix per pair.
+ *
+ * As in InterfaceMatrix.distance, the query B1 is kept fixed and the equivalents C_b, C_c of a row B2 are
+ * scanned. The misorientation trace tr(C_c M2^T C_b^T M1) is the entrywise product of M2 with
+ * Z_bc = C_b^T M1 C_c, and the plane terms are the dot products of the row normals with C_b^T m1 and C_c^T m2,
+ * so everything that depends on the query alone is tabulated once per call. The rows are then processed in
+ * blocks, with the per-row work in plain loops over the columns that the JIT can vectorize. An arc cosine is
+ * only taken when the lower bound omega^2 >= 3 - tr, added to the plane term, is below the best distance so far.
+ */
+public final class BoundaryColumns {
+
+	private static final int BLOCK = 64;
+
+	private final int size;
+
+	private final double[] m00, m01, m02, m10, m11, m12, m20, m21, m22;
+	private final double[] m1x, m1y, m1z;
+	private final double[] m2x, m2y, m2z;
+
+	private BoundaryColumns(List<InterfaceMatrix> boundaries) {
+		size = boundaries.size();
+		m00 = new double[size]; m01 = new double[size]; m02 = new double[size];
+		m10 = new double[size]; m11 = new double[size]; m12 = new double[size];
+		m20 = new double[size]; m21 = new double[size]; m22 = new double[size];
+		m1x = new double[size]; m1y = new double[size]; m1z = new double[size];
+		m2x = new double[size]; m2y = new double[size]; m2z = new double[size];
+
+		for (int i = 0; i < size; i++) {
+			InterfaceMatrix B = boundaries.get(i);
+			Matrix3x3 M = B.M();
+			m00[i] = M.e00(); m01[i] = M.e01(); m02[i] = M.e02();
+			m10[i] = M.e10(); m11[i] = M.e11(); m12[i] = M.e12();
+			m20[i] = M.e20(); m21[i] = M.e21(); m22[i] = M.e22();
+			m1x[i] = B.m1().x(); m1y[i] = B.m1().y(); m1z[i] = B.m1().z();
+			m2x[i] = B.m2().x(); m2y[i] = B.m2().y(); m2z[i] = B.m2().z();
+		}
+	}
+
+	public static BoundaryColumns of(List<InterfaceMatrix> boundaries) {
+		return new BoundaryColumns(boundaries);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	// the boundary in the given row, as a new InterfaceMatrix
+	public InterfaceMatrix get(int row) {
+		Matrix3x3 M = new Matrix3x3(m00[row], m01[row], m02[row], m10[row], m11[row], m12[row],
+			m20[row], m21[row], m22[row]);
+		UnitVector m1 = new UnitVector();
+		m1.set(m1x[row], m1y[row], m1z[row]);
+		return new InterfaceMatrix(M, m1);
+	}
+
+	public double[] distances(InterfaceMatrix query, PointGroup ptGrp, boolean interchange, boolean min) {
+		double[] out = new double[size];
+		distances(query, ptGrp, interchange, min, 0, size, out, 0);
+		return out;
+	}
+
+	/*
+	 * The same as query.distance(row, ptGrp, interchange, min) for the rows from, ..., to - 1, written to
+	 * out[offset], ..., out[offset + to - from - 1].
+	 */
+	public void distances(InterfaceMatrix query, PointGroup ptGrp, boolean interchange, boolean min,
+						  int from, int to, double[] out, int offset) {
+		if (from < 0 || to > size || from > to) {
+			throw new IndexOutOfBoundsException("Rows " + from + " to " + to + " of " + size);
+		}
+		Kernel kernel = new Kernel(query, ptGrp, min);
+		for (int start = from; start < to; start += BLOCK) {
+			kernel.block(start, Math.min(start + BLOCK, to), interchange, out, offset + start - from);
+		}
+	}
+
+	private final class Kernel {
+
+		private final int n;
+		private final boolean min;
+
+		// Z_bc for b, c in turn, and C_b^T m1, C_c^T m2 of the query
+		private final double[] Z;
+		private final double[] U;
+		private final double[] V;
+
+		// squared plane angles of the block rows for every operator, row by row within an operator
+		private final double[] theta1Sq, theta1SqMinus, theta2Sq, theta2SqMinus;
+		private final double[] dot;
+		private final double[] tr;
+		private final double[] best;
+
+		Kernel(InterfaceMatrix query, PointGroup ptGrp, boolean min) {
+			this.min = min;
+			SymmetryTable setC = Transformations.getSymmetryTable(ptGrp);
+			n = setC.size();
+
+			Matrix3x3 M1 = query.M();
+			double[] Y = new double[9];
+			Z = new double[9 * n * n];
+			U = new double[3 * n];
+			V = new double[3 * n];
+			for (int b = 0; b < n; b++) {
+				for (int i = 0; i < 3; i++) {
+					for (int j = 0; j < 3; j++) {
+						Y[3 * i + j] = setC.entry(b, 0, i) * M1.get(0, j) + setC.entry(b, 1, i) * M1.get(1, j)
+							+ setC.entry(b, 2, i) * M1.get(2, j);
+					}
+				}
+				for (int c = 0; c < n; c++) {
+					int z = 9 * (n * b + c);
+					for (int i = 0; i < 3; i++) {
+						for (int j = 0; j < 3; j++) {
+							Z[z + 3 * i + j] = Y[3 * i] * setC.entry(c, 0, j) + Y[3 * i + 1] * setC.entry(c, 1, j)
+								+ Y[3 * i + 2] * setC.entry(c, 2, j);
+						}
+					}
+				}
+				transposedTransform(setC, b, query.m1(), U, 3 * b);
+				transposedTransform(setC, b, query.m2(), V, 3 * b);
+			}
+
+			theta1Sq = new double[n * BLOCK];
+			theta1SqMinus = new double[n * BLOCK];
+			theta2Sq = new double[n * BLOCK];
+			theta2SqMinus = new double[n * BLOCK];
+			dot = new double[BLOCK];
+			tr = new double[BLOCK];
+			best = new double[BLOCK];
+		}
+
+		private void transposedTransform(SymmetryTable setC, int k, UnitVector v, double[] out, int offset) {
+			for (int j = 0; j < 3; j++) {
+				out[offset + j] = setC.entry(k, 0, j) * v.x() + setC.entry(k, 1, j) * v.y() + setC.entry(k, 2, j) * v.z();
+			}
+		}
+
+		void block(int from, int to, boolean interchange, double[] out, int offset) {
+			int rows = to - from;
+			Arrays.fill(best, 0, rows, Double.MAX_VALUE);
+
+			scan(from, rows, false);
+			if (interchange) {
+				// the transposed row: M2^T, with m1 and m2 swapped
+				scan(from, rows, true);
+			}
+			for (int r = 0; r < rows; r++) {
+				out[offset + r] = Math.sqrt(best[r]);
+			}
+		}
+
+		private void scan(int from, int rows, boolean transposed) {
+			double[] ax = transposed ? m2x : m1x, ay = transposed ? m2y : m1y, az = transposed ? m2z : m1z;
+			double[] bx = transposed ? m1x : m2x, by = transposed ? m1y : m2y, bz = transposed ? m1z : m2z;
+			planeAngles(U, ax, ay, az, from, rows, theta1Sq, theta1SqMinus);
+			planeAngles(V, bx, by, bz, from, rows, theta2Sq, theta2SqMinus);
+
+			// entries of M2, or of M2^T for the transposed row
+			double[] e00 = m00, e11 = m11, e22 = m22;
+			double[] e01 = transposed ? m10 : m01, e02 = transposed ? m20 : m02, e12 = transposed ? m21 : m12;
+			double[] e10 = transposed ? m01 : m10, e20 = transposed ? m02 : m20, e21 = transposed ? m12 : m21;
+
+			for (int b = 0; b < n; b++) {
+				for (int c = 0; c < n; c++) {
+					int z = 9 * (n * b + c);
+					double z00 = Z[z], z01 = Z[z + 1], z02 = Z[z + 2];
+					double z10 = Z[z + 3], z11 = Z[z + 4], z12 = Z[z + 5];
+					double z20 = Z[z + 6], z21 = Z[z + 7], z22 = Z[z + 8];
+					for (int r = 0, i = from; r < rows; r++, i++) {
+						tr[r] = z00 * e00[i] + z01 * e01[i] + z02 * e02[i]
+							+ z10 * e10[i] + z11 * e11[i] + z12 * e12[i]
+							+ z20 * e20[i] + z21 * e21[i] + z22 * e22[i];
+					}
+
+					int t1 = BLOCK * b, t2 = BLOCK * c;
+					for (int r = 0; r < rows; r++) {
+						double planes = theta1Sq[t1 + r] + theta2Sq[t2 + r];
+						if (min) {
+							planes = Math.min(planes, theta1SqMinus[t1 + r] + theta2SqMinus[t2 + r]);
+						}
+						planes *= 0.5d;
+
+						// omega^2 >= 2 (1 - cos omega) = 3 - tr
+						if (planes + 3d - tr[r] >= best[r]) {
+							continue;
+						}
+						double omega = SaferMath.acos(0.5d * (tr[r] - 1d));
+						double dist = omega * omega + planes;
+						if (dist < best[r]) {
+							best[r] = dist;
+						}
+					}
+				}
+			}
+		}
+
+		// squared angles between the rows' normals and the query normals in W (and their inversions)
+		private void planeAngles(double[] W, double[] x, double[] y, double[] z, int from, int rows,
+								 double[] thetaSq, double[] thetaSqMinus) {
+			for (int k = 0; k < n; k++) {
+				double wx = W[3 * k], wy = W[3 * k + 1], wz = W[3 * k + 2];
+				for (int r = 0, i = from; r < rows; r++, i++) {
+					dot[r] = wx * x[i] + wy * y[i] + wz * z[i];
+				}
+				int t = BLOCK * k;
+				for (int r = 0; r < rows; r++) {
+					double theta = SaferMath.acos(dot[r]);
+					thetaSq[t + r] = theta * theta;
+				}
+				if (min) {
+					for (int r = 0; r < rows; r++) {
+						double thetaMinus = SaferMath.acos(-dot[r]);
+						thetaSqMinus[t + r] = thetaMinus * thetaMinus;
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,300 @@
+package io.github.kglowins.gbparameters.distances;
+
+import io.github.kglowins.gbparameters.enums.PointGroup;
+import io.github.kglowins.gbparameters.representation.InterfaceMatrix;
+import io.github.kglowins.gbparameters.representation.Matrix3x3;
+import io.github.kglowins.gbparameters.representation.Quaternion;
+import io.github.kglowins.gbparameters.utils.Transformations;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/*
+ * Symmetry-invariant feature vectors of boundaries, for candidate generation with Euclidean methods. Each
+ * feature is a group-averaged harmonic, the mean of a power of <x, r> over the symmetry orbit of x for a fixed
+ * random reference r. There are three kinds:
+ *
+ *   - misorientation features, with x running over the equivalent quaternions g q h,
+ *   - joint features, products of those with <g m1, v>, which tie the equivalent misorientations to the
+ *     normals that go with them, and
+ *   - plane features of the equivalent normals C m1 and C m2.
+ *
+ * With interchange, the orbits of the transposed boundary (q*, m2) are included and the plane features are
+ * replaced by symmetric functions of the two normals. The powers are even, so the features do not depend on
+ * the signs of the quaternions or of the normals (and hence not on min).
+ *
+ * The features are smooth on the boundary space, so close boundaries get close vectors; the converse holds
+ * only approximately, which is why exact distances are still computed on the candidates. The joint features
+ * carry most of the information and are weighted accordingly.
+ *
+ * A vector takes two sweeps over all pairs of operators and quaternion references, about 0.6 ms per boundary
+ * for m-3m and 0.08-0.2 ms for the smaller groups; it pays off when it is reused for many comparisons.
+ */
+public final class BoundaryFeatures {
+
+	private static final int MISORIENTATION_REFERENCES = 64;
+	private static final int NORMAL_REFERENCES = 24;
+
+	private static final double MISORIENTATION_WEIGHT = 1d;
+	private static final double JOINT_WEIGHT = 30d;
+	private static final double PLANE_WEIGHT = 0.25d;
+
+	private static final long SEED = 0x5eed5eedL;
+
+	private static final BoundaryFeatures[] FEATURES = new BoundaryFeatures[2 * PointGroup.values().length];
+
+	static {
+		for (PointGroup ptGrp : PointGroup.values()) {
+			FEATURES[2 * ptGrp.ordinal()] = new BoundaryFeatures(ptGrp, false);
+			FEATURES[2 * ptGrp.ordinal() + 1] = new BoundaryFeatures(ptGrp, true);
+		}
+	}
+
+	private final PointGroup ptGrp;
+	private final boolean interchange;
+	private final int n;
+
+	// the features use <x, r>^(2^squarings); the larger the group, the smaller its fundamental zone and the
+	// sharper the harmonics that are needed to tell boundaries apart
+	private final int misorientationSquarings;
+	private final int normalSquarings;
+
+	private final double[] symmetries;
+
+	// g* r for every operator g and quaternion reference r, grouped by operator
+	private final double[] misorientationReferences;
+
+	// C^T u for every operator C and direction reference u, grouped by operator
+	private final double[] normalReferences;
+
+	// C^T v for the directions v paired with the quaternion references r in the joint features
+	private final double[] jointReferences;
+
+	private BoundaryFeatures(PointGroup ptGrp, boolean interchange) {
+		this.ptGrp = ptGrp;
+		this.interchange = interchange;
+		symmetries = Transformations.getSymmetryQuaternions(ptGrp);
+		n = symmetries.length / 4;
+		Matrix3x3[] setC = Transformations.getSymmetryTransformations(ptGrp);
+
+		switch (ptGrp) {
+			case M3M:
+			case _6MMM:
+				misorientationSquarings = 6;
+				normalSquarings = 4;
+				break;
+			case _4MMM:
+				misorientationSquarings = 5;
+				normalSquarings = 4;
+				break;
+			case MMM:
+			case _3M:
+				misorientationSquarings = 4;
+				normalSquarings = 3;
+				break;
+			default:
+				misorientationSquarings = 3;
+				normalSquarings = 3;
+				break;
+		}
+
+		// the same references for every point group
+		Random random = new Random(SEED);
+		double[] r = new double[4 * MISORIENTATION_REFERENCES];
+		for (int j = 0; j < MISORIENTATION_REFERENCES; j++) {
+			randomUnit(random, r, 4 * j, 4);
+		}
+		double[] u = new double[3 * NORMAL_REFERENCES];
+		for (int j = 0; j < NORMAL_REFERENCES; j++) {
+			randomUnit(random, u, 3 * j, 3);
+		}
+		double[] v = new double[3 * MISORIENTATION_REFERENCES];
+		for (int j = 0; j < MISORIENTATION_REFERENCES; j++) {
+			randomUnit(random, v, 3 * j, 3);
+		}
+
+		misorientationReferences = new double[4 * n * MISORIENTATION_REFERENCES];
+		normalReferences = new double[3 * n * NORMAL_REFERENCES];
+		jointReferences = new double[3 * n * MISORIENTATION_REFERENCES];
+		for (int g = 0; g < n; g++) {
+			double g0 = symmetries[4 * g], g1 = -symmetries[4 * g + 1], g2 = -symmetries[4 * g + 2],
+				g3 = -symmetries[4 * g + 3];
+			for (int j = 0; j < MISORIENTATION_REFERENCES; j++) {
+				int i = 4 * (g * MISORIENTATION_REFERENCES + j);
+				double r0 = r[4 * j], r1 = r[4 * j + 1], r2 = r[4 * j + 2], r3 = r[4 * j + 3];
+				misorientationReferences[i] = g0 * r0 - g1 * r1 - g2 * r2 - g3 * r3;
+				misorientationReferences[i + 1] = g0 * r1 + r0 * g1 + g2 * r3 - g3 * r2;
+				misorientationReferences[i + 2] = g0 * r2 + r0 * g2 + g3 * r1 - g1 * r3;
+				misorientationReferences[i + 3] = g0 * r3 + r0 * g3 + g1 * r2 - g2 * r1;
+			}
+			for (int j = 0; j < NORMAL_REFERENCES; j++) {
+				transposedTimes(setC[g], u, 3 * j, normalReferences, 3 * (g * NORMAL_REFERENCES + j));
+			}
+			for (int j = 0; j < MISORIENTATION_REFERENCES; j++) {
+				transposedTimes(setC[g], v, 3 * j, jointReferences, 3 * (g * MISORIENTATION_REFERENCES + j));
+			}
+		}
+	}
+
+	private static void transposedTimes(Matrix3x3 C, double[] u, int offset, double[] out, int outOffset) {
+		double x = u[offset], y = u[offset + 1], z = u[offset + 2];
+		out[outOffset] = C.e00() * x + C.e10() * y + C.e20() * z;
+		out[outOffset + 1] = C.e01() * x + C.e11() * y + C.e21() * z;
+		out[outOffset + 2] = C.e02() * x + C.e12() * y + C.e22() * z;
+	}
+
+	public static BoundaryFeatures of(PointGroup ptGrp, boolean interchange) {
+		return FEATURES[2 * ptGrp.ordinal() + (interchange ? 1 : 0)];
+	}
+
+	public PointGroup pointGroup() {
+		return ptGrp;
+	}
+
+	public boolean isInterchange() {
+		return interchange;
+	}
+
+	public int dimension() {
+		return 2 * MISORIENTATION_REFERENCES + 2 * NORMAL_REFERENCES;
+	}
+
+	private static void randomUnit(Random random, double[] out, int offset, int size) {
+		double norm = 0d;
+		for (int i = 0; i < size; i++) {
+			out[offset + i] = random.nextGaussian();
+			norm += out[offset + i] * out[offset + i];
+		}
+		norm = Math.sqrt(norm);
+		for (int i = 0; i < size; i++) {
+			out[offset + i] /= norm;
+		}
+	}
+
+	public double[] features(InterfaceMatrix B) {
+		double[] out = new double[dimension()];
+		features(B, out, 0);
+		return out;
+	}
+
+	// features of the boundaries, dimension() values each
+	public double[] features(List<InterfaceMatrix> boundaries) {
+		int dimension = dimension();
+		double[] out = new double[dimension * boundaries.size()];
+		for (int i = 0; i < boundaries.size(); i++) {
+			features(boundaries.get(i), out, dimension * i);
+		}
+		return out;
+	}
+
+	/*
+	 * Features of B, written to out at the offset: the misorientation block, the joint block, which pairs the
+	 * equivalent misorientations with the corresponding normals m1, and the two plane blocks.
+	 */
+	public void features(InterfaceMatrix B, double[] out, int offset) {
+
+		double[] q = new double[4];
+		Quaternion.components(B.M(), q, 0);
+
+		int joint = offset + MISORIENTATION_REFERENCES;
+		for (int j = 0; j < 2 * MISORIENTATION_REFERENCES; j++) {
+			out[offset + j] = 0d;
+		}
+		double[] sums = new double[n * MISORIENTATION_REFERENCES];
+		addOrbitFeatures(q[0], q[1], q[2], q[3], B.m1().x(), B.m1().y(), B.m1().z(), sums, out, offset, joint);
+		double orbit = n * n;
+		if (interchange) {
+			// the transposed boundary, M^T with m2 in place of m1
+			addOrbitFeatures(q[0], -q[1], -q[2], -q[3], B.m2().x(), B.m2().y(), B.m2().z(), sums, out, offset,
+				joint);
+			orbit *= 2d;
+		}
+		for (int j = 0; j < MISORIENTATION_REFERENCES; j++) {
+			out[offset + j] *= MISORIENTATION_WEIGHT / orbit;
+			out[joint + j] *= JOINT_WEIGHT / orbit;
+		}
+
+		int planes = joint + MISORIENTATION_REFERENCES;
+		normalFeatures(B.m1().x(), B.m1().y(), B.m1().z(), out, planes);
+		normalFeatures(B.m2().x(), B.m2().y(), B.m2().z(), out, planes + NORMAL_REFERENCES);
+		for (int j = 0; j < NORMAL_REFERENCES; j++) {
+			double f1 = PLANE_WEIGHT * out[planes + j];
+			double f2 = PLANE_WEIGHT * out[planes + NORMAL_REFERENCES + j];
+			if (interchange) {
+				// symmetric functions of the two, unchanged when the grains are swapped
+				out[planes + j] = 0.5d * (f1 + f2);
+				out[planes + NORMAL_REFERENCES + j] = 0.5d * Math.abs(f1 - f2);
+			} else {
+				out[planes + j] = f1;
+				out[planes + NORMAL_REFERENCES + j] = f2;
+			}
+		}
+	}
+
+	/*
+	 * Adds the sums over the equivalents (g p h, g m) of <g p h, r>^a to the misorientation block and of
+	 * <g p h, r>^a <g m, v>^b to the joint block, using <g p h, r> = <p h, g* r> and <g m, v> = <m, g^T v>.
+	 */
+	private void addOrbitFeatures(double p0, double p1, double p2, double p3, double mx, double my, double mz,
+								  double[] sums, double[] out, int misorientations, int joint) {
+
+		Arrays.fill(sums, 0d);
+		for (int h = 0; h < n; h++) {
+			int i = 4 * h;
+			double h0 = symmetries[i], h1 = symmetries[i + 1], h2 = symmetries[i + 2], h3 = symmetries[i + 3];
+			double a0 = p0 * h0 - p1 * h1 - p2 * h2 - p3 * h3;
+			double a1 = p0 * h1 + h0 * p1 + p2 * h3 - p3 * h2;
+			double a2 = p0 * h2 + h0 * p2 + p3 * h1 - p1 * h3;
+			double a3 = p0 * h3 + h0 * p3 + p1 * h2 - p2 * h1;
+
+			for (int k = 0; k < sums.length; k++) {
+				int r = 4 * k;
+				double d = a0 * misorientationReferences[r] + a1 * misorientationReferences[r + 1]
+					+ a2 * misorientationReferences[r + 2] + a3 * misorientationReferences[r + 3];
+				sums[k] += power(d, misorientationSquarings);
+			}
+		}
+
+		for (int k = 0; k < sums.length; k++) {
+			int j = k % MISORIENTATION_REFERENCES;
+			int v = 3 * k;
+			double d = mx * jointReferences[v] + my * jointReferences[v + 1] + mz * jointReferences[v + 2];
+			out[misorientations + j] += sums[k];
+			out[joint + j] += sums[k] * power(d, normalSquarings);
+		}
+	}
+
+	// the means over C of the powers of <C m, u> = <m, C^T u>
+	private void normalFeatures(double x, double y, double z, double[] out, int offset) {
+		for (int j = 0; j < NORMAL_REFERENCES; j++) {
+			out[offset + j] = 0d;
+		}
+		for (int k = 0; k < normalReferences.length; k += 3 * NORMAL_REFERENCES) {
+			for (int j = 0; j < NORMAL_REFERENCES; j++) {
+				int u = k + 3 * j;
+				double d = x * normalReferences[u] + y * normalReferences[u + 1] + z * normalReferences[u + 2];
+				out[offset + j] += power(d, normalSquarings);
+			}
+		}
+		for (int j = 0; j < NORMAL_REFERENCES; j++) {
+			out[offset + j] /= n;
+		}
+	}
+
+	private static double power(double d, int squarings) {
+		for (int s = 0; s < squarings; s++) {
+			d *= d;
+		}
+		return d;
+	}
+
+	public static double distance(double[] f1, int o1, double[] f2, int o2, int dimension) {
+		double sum = 0d;
+		for (int i = 0; i < dimension; i++) {
+			double d = f1[o1 + i] - f2[o2 + i];
+			sum += d * d;
+		}
+		return Math.sqrt(sum);
+	}
+}
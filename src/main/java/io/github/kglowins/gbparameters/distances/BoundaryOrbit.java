@@ -0,0 +1,123 @@
+package io.github.kglowins.gbparameters.distances;
+
+import io.github.kglowins.gbparameters.enums.PointGroup;
+import io.github.kglowins.gbparameters.representation.InterfaceMatrix;
+import io.github.kglowins.gbparameters.utils.SaferMath;
+import io.github.kglowins.gbparameters.utils.SymmetryTable;
+import io.github.kglowins.gbparameters.utils.Transformations;
+
+import java.util.List;
+
+/*
+ * The symmetry equivalents C m1 and C m2 of the plane normals of a boundary, kept in flat arrays, for plane
+ * space distances to many other boundaries. In distancePlaneSpace the normals of the first crystal and those
+ * of the second are transformed by independent operators, so the two angles are minimized separately: the
+ * angle of m1 to the orbit of m1' is that to its nearest point, i.e. acos of the largest dot product (and
+ * of minus the smallest one for the inverted boundary). A transposition swaps the two orbits.
+ */
+public final class BoundaryOrbit {
+
+	private final PointGroup ptGrp;
+
+	private final double m1x, m1y, m1z;
+	private final double m2x, m2y, m2z;
+
+	// x, y, z of C m1 and C m2 for each operator C in turn
+	private final double[] orbit1;
+	private final double[] orbit2;
+
+	private BoundaryOrbit(InterfaceMatrix B, PointGroup ptGrp) {
+		this.ptGrp = ptGrp;
+		m1x = B.m1().x(); m1y = B.m1().y(); m1z = B.m1().z();
+		m2x = B.m2().x(); m2y = B.m2().y(); m2z = B.m2().z();
+
+		SymmetryTable setC = Transformations.getSymmetryTable(ptGrp);
+		orbit1 = new double[3 * setC.size()];
+		orbit2 = new double[3 * setC.size()];
+		for (int k = 0; k < setC.size(); k++) {
+			transform(setC, k, m1x, m1y, m1z, orbit1, 3 * k);
+			transform(setC, k, m2x, m2y, m2z, orbit2, 3 * k);
+		}
+	}
+
+	public static BoundaryOrbit of(InterfaceMatrix B, PointGroup ptGrp) {
+		return new BoundaryOrbit(B, ptGrp);
+	}
+
+	public static BoundaryOrbit[] of(List<InterfaceMatrix> boundaries, PointGroup ptGrp) {
+		BoundaryOrbit[] orbits = new BoundaryOrbit[boundaries.size()];
+		for (int i = 0; i < orbits.length; i++) {
+			orbits[i] = new BoundaryOrbit(boundaries.get(i), ptGrp);
+		}
+		return orbits;
+	}
+
+	public PointGroup pointGroup() {
+		return ptGrp;
+	}
+
+	public int size() {
+		return orbit1.length / 3;
+	}
+
+	private static void transform(SymmetryTable setC, int k, double x, double y, double z, double[] out, int offset) {
+		for (int i = 0; i < 3; i++) {
+			out[offset + i] = setC.entry(k, i, 0) * x + setC.entry(k, i, 1) * y + setC.entry(k, i, 2) * z;
+		}
+	}
+
+	// the same as this boundary's distancePlaneSpace to other
+	public double planeDistance(BoundaryOrbit other, boolean interchange, boolean min) {
+		if (other.ptGrp != ptGrp) {
+			throw new IllegalArgumentException("Orbits of different point groups: " + ptGrp + ", " + other.ptGrp);
+		}
+
+		double minDist = planeDistanceSq(m1x, m1y, m1z, other.orbit1, m2x, m2y, m2z, other.orbit2, min);
+		if (interchange) {
+			minDist = Math.min(minDist,
+				planeDistanceSq(m1x, m1y, m1z, other.orbit2, m2x, m2y, m2z, other.orbit1, min));
+		}
+		return Math.sqrt(minDist);
+	}
+
+	// distances to each of the references, written to out
+	public void planeDistances(BoundaryOrbit[] references, boolean interchange, boolean min, double[] out) {
+		for (int i = 0; i < references.length; i++) {
+			out[i] = planeDistance(references[i], interchange, min);
+		}
+	}
+
+	public double[] planeDistances(BoundaryOrbit[] references, boolean interchange, boolean min) {
+		double[] out = new double[references.length];
+		planeDistances(references, interchange, min, out);
+		return out;
+	}
+
+	private static double planeDistanceSq(double ax, double ay, double az, double[] orbitA,
+										  double bx, double by, double bz, double[] orbitB, boolean min) {
+
+		double maxDotA = -1d, minDotA = 1d;
+		for (int i = 0; i < orbitA.length; i += 3) {
+			double dot = ax * orbitA[i] + ay * orbitA[i + 1] + az * orbitA[i + 2];
+			maxDotA = Math.max(maxDotA, dot);
+			minDotA = Math.min(minDotA, dot);
+		}
+		double maxDotB = -1d, minDotB = 1d;
+		for (int i = 0; i < orbitB.length; i += 3) {
+			double dot = bx * orbitB[i] + by * orbitB[i + 1] + bz * orbitB[i + 2];
+			maxDotB = Math.max(maxDotB, dot);
+			minDotB = Math.min(minDotB, dot);
+		}
+
+		double theta1 = SaferMath.acos(maxDotA);
+		double theta2 = SaferMath.acos(maxDotB);
+		double dist = 0.5d * (theta1 * theta1 + theta2 * theta2);
+		if (min) {
+			// both normals of one boundary inverted
+			double theta1Minus = SaferMath.acos(-minDotA);
+			double theta2Minus = SaferMath.acos(-minDotB);
+			dist = Math.min(dist, 0.5d * (theta1Minus * theta1Minus + theta2Minus * theta2Minus));
+		}
+		return dist;
+	}
+}
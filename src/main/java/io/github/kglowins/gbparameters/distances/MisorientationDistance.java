@@ -0,0 +1,186 @@
+package io.github.kglowins.gbparameters.distances;
+
+import io.github.kglowins.gbparameters.enums.PointGroup;
+import io.github.kglowins.gbparameters.representation.InterfaceMatrix;
+import io.github.kglowins.gbparameters.representation.Quaternion;
+import io.github.kglowins.gbparameters.utils.SaferMath;
+import io.github.kglowins.gbparameters.utils.Transformations;
+
+import java.util.List;
+
+/*
+ * Disorientation angle between the misorientations of two boundaries, i.e. the smallest rotation angle of
+ * (C1 M2 C2^T)(C3 M1 C4^T)^T over the symmetry operators. Its cosine is the trace of C M2 C' M1^T for two free
+ * operators C = C3^T C1 and C' = C2^T C4, so with quaternions the angle is 2 acos max |(g q2 h q1*)_0| over g, h.
+ * For every h the maximum over g is taken in closed form for m-3m and by a scan over the (at most 12)
+ * operators otherwise. With interchange, q2 is also replaced by q2*; transposing both boundaries does not
+ * change the angle.
+ */
+public final class MisorientationDistance {
+
+	private static final double SQRT_HALF = Math.sqrt(0.5d);
+
+	private static final MisorientationDistance[] DISTANCES =
+		new MisorientationDistance[PointGroup.values().length];
+
+	static {
+		for (PointGroup ptGrp : PointGroup.values()) {
+			DISTANCES[ptGrp.ordinal()] = new MisorientationDistance(ptGrp);
+		}
+	}
+
+	private final PointGroup ptGrp;
+	private final double[] symmetries;
+	private final int n;
+	private final boolean cubic;
+
+	private MisorientationDistance(PointGroup ptGrp) {
+		this.ptGrp = ptGrp;
+		symmetries = Transformations.getSymmetryQuaternions(ptGrp);
+		n = symmetries.length / 4;
+		cubic = ptGrp == PointGroup.M3M;
+	}
+
+	public static MisorientationDistance of(PointGroup ptGrp) {
+		return DISTANCES[ptGrp.ordinal()];
+	}
+
+	public PointGroup pointGroup() {
+		return ptGrp;
+	}
+
+	// quaternions of the misorientations of the boundaries, packed as q0, q1, q2, q3 of each in turn
+	public static double[] quaternions(List<InterfaceMatrix> boundaries) {
+		double[] q = new double[4 * boundaries.size()];
+		for (int i = 0; i < boundaries.size(); i++) {
+			Quaternion.components(boundaries.get(i).M(), q, 4 * i);
+		}
+		return q;
+	}
+
+	public double distance(InterfaceMatrix B1, InterfaceMatrix B2, boolean interchange) {
+		double[] q = new double[8];
+		Quaternion.components(B1.M(), q, 0);
+		Quaternion.components(B2.M(), q, 4);
+		return distance(q, 0, q, 4, interchange);
+	}
+
+	// the angle between the quaternions at offsets o1 of q1 and o2 of q2
+	public double distance(double[] q1, int o1, double[] q2, int o2, boolean interchange) {
+		return 2d * SaferMath.acos(Math.min(1d, maxScalar(q1, o1, q2, o2, interchange, 1d)));
+	}
+
+	public boolean isWithin(InterfaceMatrix B1, InterfaceMatrix B2, double tol, boolean interchange) {
+		double[] q = new double[8];
+		Quaternion.components(B1.M(), q, 0);
+		Quaternion.components(B2.M(), q, 4);
+		return isWithin(q, 0, q, 4, tol, interchange);
+	}
+
+	// whether distance(q1, o1, q2, o2, interchange) <= tol, stopping at the first pair of operators that shows it
+	public boolean isWithin(double[] q1, int o1, double[] q2, int o2, double tol, boolean interchange) {
+		if (tol >= Math.PI) {
+			return true;
+		}
+		double cos = Math.cos(0.5d * tol);
+		return maxScalar(q1, o1, q2, o2, interchange, cos) >= cos;
+	}
+
+	private double maxScalar(double[] q1, int o1, double[] q2, int o2, boolean interchange, double stopAt) {
+		double cos = maxScalar(q1[o1], -q1[o1 + 1], -q1[o1 + 2], -q1[o1 + 3],
+			q2[o2], q2[o2 + 1], q2[o2 + 2], q2[o2 + 3], stopAt);
+		if (interchange && cos < stopAt) {
+			cos = Math.max(cos, maxScalar(q1[o1], -q1[o1 + 1], -q1[o1 + 2], -q1[o1 + 3],
+				q2[o2], -q2[o2 + 1], -q2[o2 + 2], -q2[o2 + 3], stopAt));
+		}
+		return cos;
+	}
+
+	/*
+	 * Distances from the quaternion at offset o of q to the quaternions from, ..., to - 1 of quaternions,
+	 * written to out[0], ..., out[to - from - 1].
+	 */
+	public void distances(double[] q, int o, double[] quaternions, int from, int to, boolean interchange,
+						  double[] out) {
+		for (int k = from; k < to; k++) {
+			out[k - from] = distance(q, o, quaternions, 4 * k, interchange);
+		}
+	}
+
+	public double[] distances(InterfaceMatrix B, List<InterfaceMatrix> others, boolean interchange) {
+		double[] q = new double[4];
+		Quaternion.components(B.M(), q, 0);
+		double[] out = new double[others.size()];
+		distances(q, 0, quaternions(others), 0, others.size(), interchange, out);
+		return out;
+	}
+
+	// max over g, h of |(g p h c)_0|, where c = q1* and p = q2, or the first value not below stopAt
+	private double maxScalar(double c0, double c1, double c2, double c3,
+							 double p0, double p1, double p2, double p3, double stopAt) {
+		double best = 0d;
+		for (int h = 0; h < n; h++) {
+			int i = 4 * h;
+			double h0 = symmetries[i], h1 = symmetries[i + 1], h2 = symmetries[i + 2], h3 = symmetries[i + 3];
+
+			// a = p h
+			double a0 = p0 * h0 - p1 * h1 - p2 * h2 - p3 * h3;
+			double a1 = p0 * h1 + h0 * p1 + p2 * h3 - p3 * h2;
+			double a2 = p0 * h2 + h0 * p2 + p3 * h1 - p1 * h3;
+			double a3 = p0 * h3 + h0 * p3 + p1 * h2 - p2 * h1;
+
+			// y = a c
+			double y0 = a0 * c0 - a1 * c1 - a2 * c2 - a3 * c3;
+			double y1 = a0 * c1 + c0 * a1 + a2 * c3 - a3 * c2;
+			double y2 = a0 * c2 + c0 * a2 + a3 * c1 - a1 * c3;
+			double y3 = a0 * c3 + c0 * a3 + a1 * c2 - a2 * c1;
+
+			double s = cubic ? maxCubicScalar(y0, y1, y2, y3) : maxScalar(y0, y1, y2, y3);
+			if (s > best) {
+				best = s;
+				if (best >= stopAt) {
+					return best;
+				}
+			}
+		}
+		return best;
+	}
+
+	// max over g of |(g y)_0|
+	private double maxScalar(double y0, double y1, double y2, double y3) {
+		double best = 0d;
+		for (int i = 0; i < symmetries.length; i += 4) {
+			double s = Math.abs(symmetries[i] * y0 - symmetries[i + 1] * y1 - symmetries[i + 2] * y2
+				- symmetries[i + 3] * y3);
+			if (s > best) {
+				best = s;
+			}
+		}
+		return best;
+	}
+
+	/*
+	 * The same for the 24 rotations of m-3m, whose quaternions are, up to sign, 1, i, j, k, the eight
+	 * (1 +- i +- j +- k) / 2 and the twelve (e +- e') / sqrt(2) for pairs of distinct units e, e'. With
+	 * the two largest absolute values of the components of y being a >= b, the largest scalar part is
+	 * therefore one of a, (a + b) / sqrt(2) and half the sum of all four absolute values.
+	 */
+	private static double maxCubicScalar(double y0, double y1, double y2, double y3) {
+		double a = Math.abs(y0), b = Math.abs(y1), c = Math.abs(y2), d = Math.abs(y3);
+		double first = Math.max(a, b);
+		double second = Math.min(a, b);
+		if (c > first) {
+			second = first;
+			first = c;
+		} else if (c > second) {
+			second = c;
+		}
+		if (d > first) {
+			second = first;
+			first = d;
+		} else if (d > second) {
+			second = d;
+		}
+		return Math.max(first, Math.max((first + second) * SQRT_HALF, 0.5d * (a + b + c + d)));
+	}
+}
@@ -0,0 +1,212 @@
+package io.github.kglowins.gbparameters.distances;
+
+import io.github.kglowins.gbparameters.enums.PointGroup;
+import io.github.kglowins.gbparameters.representation.InterfaceMatrix;
+import io.github.kglowins.gbparameters.representation.Quaternion;
+import io.github.kglowins.gbparameters.utils.SaferMath;
+import io.github.kglowins.gbparameters.utils.Transformations;
+
+import java.util.List;
+
+/*
+ * Boundary metric on the octonion-like embedding of a boundary as a pair of quaternions (qA, qB): the
+ * orientations of the two crystals in a frame whose z axis is the boundary normal, with A m1 = z and B = A M.
+ * The embedding is unique up to a rotation of the frame about z, applied to both, and up to the symmetry
+ * operators, applied separately to each: (R qA c1, R qB c2). The distance is
+ *
+ *   2 acos max |<qA, R qA' c1> + <qB, R qB' c2>| / 2
+ *
+ * over R, c1 and c2. For fixed c1 and c2 the dot product is a cos(z / 2) + b sin(z / 2) in the rotation
+ * angle z, and its maximum over z is the norm of (a, b). The vectors (a, b) of the two crystals are computed
+ * once per operator, so only the pairing of the two lists of N plane vectors is quadratic.
+ *
+ * With interchange, the grains are also swapped and the frame turned by pi about x, (r qB, r qA); with min,
+ * both normals are also inverted, (r qA, r qB).
+ */
+public final class OctonionDistance {
+
+	public static final int EMBEDDING_SIZE = 8;
+
+	private static final OctonionDistance[] DISTANCES = new OctonionDistance[PointGroup.values().length];
+
+	static {
+		for (PointGroup ptGrp : PointGroup.values()) {
+			DISTANCES[ptGrp.ordinal()] = new OctonionDistance(ptGrp);
+		}
+	}
+
+	private final PointGroup ptGrp;
+	private final double[] symmetries;
+	private final int n;
+
+	private OctonionDistance(PointGroup ptGrp) {
+		this.ptGrp = ptGrp;
+		symmetries = Transformations.getSymmetryQuaternions(ptGrp);
+		n = symmetries.length / 4;
+	}
+
+	public static OctonionDistance of(PointGroup ptGrp) {
+		return DISTANCES[ptGrp.ordinal()];
+	}
+
+	public PointGroup pointGroup() {
+		return ptGrp;
+	}
+
+	public static double[] embed(InterfaceMatrix B) {
+		double[] o = new double[EMBEDDING_SIZE];
+		embed(B, o, 0);
+		return o;
+	}
+
+	// qA and qB of the boundary, written to o at the offset
+	public static void embed(InterfaceMatrix B, double[] o, int offset) {
+
+		// the shortest rotation taking m1 to z, (1 + m1.z, m1 x z) normalized
+		double x = B.m1().x(), y = B.m1().y(), z = B.m1().z();
+		double a0, a1, a2, a3;
+		if (z > -1d + 1e-12d) {
+			double norm = Math.sqrt(2d * (1d + z));
+			a0 = (1d + z) / norm;
+			a1 = y / norm;
+			a2 = -x / norm;
+			a3 = 0d;
+		} else {
+			// m1 = -z, turned by pi about x
+			a0 = 0d;
+			a1 = 1d;
+			a2 = 0d;
+			a3 = 0d;
+		}
+
+		double[] m = new double[4];
+		Quaternion.components(B.M(), m, 0);
+
+		o[offset] = a0;
+		o[offset + 1] = a1;
+		o[offset + 2] = a2;
+		o[offset + 3] = a3;
+		o[offset + 4] = a0 * m[0] - a1 * m[1] - a2 * m[2] - a3 * m[3];
+		o[offset + 5] = a0 * m[1] + m[0] * a1 + a2 * m[3] - a3 * m[2];
+		o[offset + 6] = a0 * m[2] + m[0] * a2 + a3 * m[1] - a1 * m[3];
+		o[offset + 7] = a0 * m[3] + m[0] * a3 + a1 * m[2] - a2 * m[1];
+	}
+
+	// embeddings of the boundaries, EMBEDDING_SIZE values each
+	public static double[] embed(List<InterfaceMatrix> boundaries) {
+		double[] o = new double[EMBEDDING_SIZE * boundaries.size()];
+		for (int i = 0; i < boundaries.size(); i++) {
+			embed(boundaries.get(i), o, EMBEDDING_SIZE * i);
+		}
+		return o;
+	}
+
+	public double distance(InterfaceMatrix B1, InterfaceMatrix B2, boolean interchange, boolean min) {
+		double[] o = new double[2 * EMBEDDING_SIZE];
+		embed(B1, o, 0);
+		embed(B2, o, EMBEDDING_SIZE);
+		return distance(o, 0, o, EMBEDDING_SIZE, interchange, min);
+	}
+
+	// distance between the embeddings at offsets o1 of e1 and o2 of e2
+	public double distance(double[] e1, int o1, double[] e2, int o2, boolean interchange, boolean min) {
+		return distance(e1, o1, e2, o2, interchange, min, new double[scratchSize()]);
+	}
+
+	// length of the scratch array taken by distance(..., planes), which callers in a loop can reuse
+	public int scratchSize() {
+		return 4 * n;
+	}
+
+	// the same, with scratch space of at least scratchSize() values
+	public double distance(double[] e1, int o1, double[] e2, int o2, boolean interchange, boolean min,
+						   double[] planes) {
+
+		double best = maxDot(e1, o1, e2[o2], e2[o2 + 1], e2[o2 + 2], e2[o2 + 3],
+			e2[o2 + 4], e2[o2 + 5], e2[o2 + 6], e2[o2 + 7], planes);
+
+		// r q = (-q1, q0, -q3, q2) for r = (0, 1, 0, 0)
+		if (min) {
+			best = Math.max(best, maxDot(e1, o1, -e2[o2 + 1], e2[o2], -e2[o2 + 3], e2[o2 + 2],
+				-e2[o2 + 5], e2[o2 + 4], -e2[o2 + 7], e2[o2 + 6], planes));
+		}
+		if (interchange) {
+			best = Math.max(best, maxDot(e1, o1, -e2[o2 + 5], e2[o2 + 4], -e2[o2 + 7], e2[o2 + 6],
+				-e2[o2 + 1], e2[o2], -e2[o2 + 3], e2[o2 + 2], planes));
+			if (min) {
+				best = Math.max(best, maxDot(e1, o1, e2[o2 + 4], e2[o2 + 5], e2[o2 + 6], e2[o2 + 7],
+					e2[o2], e2[o2 + 1], e2[o2 + 2], e2[o2 + 3], planes));
+			}
+		}
+		return 2d * SaferMath.acos(Math.min(1d, 0.5d * best));
+	}
+
+	/*
+	 * Distances from the embedding at offset o of e to the embeddings from, ..., to - 1 of embeddings, written
+	 * to out[0], ..., out[to - from - 1].
+	 */
+	public void distances(double[] e, int o, double[] embeddings, int from, int to, boolean interchange,
+						  boolean min, double[] out) {
+		double[] planes = new double[scratchSize()];
+		for (int k = from; k < to; k++) {
+			out[k - from] = distance(e, o, embeddings, EMBEDDING_SIZE * k, interchange, min, planes);
+		}
+	}
+
+	public double[] distances(InterfaceMatrix B, List<InterfaceMatrix> others, boolean interchange, boolean min) {
+		double[] out = new double[others.size()];
+		distances(embed(B), 0, embed(others), 0, others.size(), interchange, min, out);
+		return out;
+	}
+
+	/*
+	 * max over c1, c2 and the frame rotation of |<qA, R pA c1> + <qB, R pB c2>|, where (qA, qB) is the
+	 * embedding at offset o of e; planes is scratch space for the (a, b) vectors of both crystals
+	 */
+	private double maxDot(double[] e, int o, double pA0, double pA1, double pA2, double pA3,
+						  double pB0, double pB1, double pB2, double pB3, double[] planes) {
+
+		planeVectors(e, o, pA0, pA1, pA2, pA3, planes, 0);
+		planeVectors(e, o + 4, pB0, pB1, pB2, pB3, planes, 2 * n);
+
+		// the frame rotation is the same for both crystals, but the signs of the quaternions are not
+		double best = 0d;
+		for (int i = 0; i < 2 * n; i += 2) {
+			double ax = planes[i], ay = planes[i + 1];
+			for (int j = 2 * n; j < 4 * n; j += 2) {
+				double bx = planes[j], by = planes[j + 1];
+				double sumX = ax + bx, sumY = ay + by;
+				double diffX = ax - bx, diffY = ay - by;
+				best = Math.max(best, Math.max(sumX * sumX + sumY * sumY, diffX * diffX + diffY * diffY));
+			}
+		}
+		return Math.sqrt(best);
+	}
+
+	/*
+	 * (<q, p c>, <q, k p c>) for every operator c, where q is at offset o of e and k = (0, 0, 0, 1) is the
+	 * generator of the frame rotations: R p c = cos(z / 2) p c + sin(z / 2) k p c.
+	 */
+	private void planeVectors(double[] e, int o, double p0, double p1, double p2, double p3,
+							  double[] planes, int offset) {
+
+		double q0 = e[o], q1 = e[o + 1], q2 = e[o + 2], q3 = e[o + 3];
+
+		// <q, k u> = <k* q, u>, with k* q = (q3, q2, -q1, -q0)
+		double r0 = q3, r1 = q2, r2 = -q1, r3 = -q0;
+
+		for (int c = 0; c < n; c++) {
+			int i = 4 * c;
+			double c0 = symmetries[i], c1 = symmetries[i + 1], c2 = symmetries[i + 2], c3 = symmetries[i + 3];
+
+			// u = p c
+			double u0 = p0 * c0 - p1 * c1 - p2 * c2 - p3 * c3;
+			double u1 = p0 * c1 + c0 * p1 + p2 * c3 - p3 * c2;
+			double u2 = p0 * c2 + c0 * p2 + p3 * c1 - p1 * c3;
+			double u3 = p0 * c3 + c0 * p3 + p1 * c2 - p2 * c1;
+
+			planes[offset + 2 * c] = q0 * u0 + q1 * u1 + q2 * u2 + q3 * u3;
+			planes[offset + 2 * c + 1] = r0 * u0 + r1 * u1 + r2 * u2 + r3 * u3;
+		}
+	}
+}
@@ -0,0 +1,102 @@
+package io.github.kglowins.gbparameters.distances;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+
+/*
+ * Symmetric matrix of pairwise distances with a zero diagonal, stored as its strict upper triangle row by row:
+ * (0,1), ..., (0,n-1), (1,2), ... Either in a single double[] or in direct (off-heap) buffers of 2^27 entries,
+ * which also hold matrices with more than 2^31 pairs.
+ */
+public final class PackedDistanceMatrix {
+
+	private static final int CHUNK_SHIFT = 27;
+	private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	// largest length of a double[] that JVMs reliably allocate
+	private static final long MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+	private final int size;
+	private final long pairCount;
+
+	private final double[] array;
+	private final DoubleBuffer[] chunks;
+
+	PackedDistanceMatrix(int size, boolean offHeap) {
+		this.size = size;
+		pairCount = (long) size * (size - 1) / 2;
+
+		if (!offHeap && pairCount <= MAX_ARRAY_LENGTH) {
+			array = new double[(int) pairCount];
+			chunks = null;
+		} else {
+			array = null;
+			chunks = new DoubleBuffer[(int) ((pairCount + CHUNK_SIZE - 1) >>> CHUNK_SHIFT)];
+			for (int k = 0; k < chunks.length; k++) {
+				long length = Math.min(CHUNK_SIZE, pairCount - ((long) k << CHUNK_SHIFT));
+				chunks[k] = ByteBuffer.allocateDirect((int) length * Double.BYTES)
+					.order(ByteOrder.nativeOrder())
+					.asDoubleBuffer();
+			}
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public long pairCount() {
+		return pairCount;
+	}
+
+	public boolean isOffHeap() {
+		return array == null;
+	}
+
+	public double get(int i, int j) {
+		if (i == j) {
+			return 0d;
+		}
+		return i < j ? get(index(i, j)) : get(index(j, i));
+	}
+
+	// entry at the given position of the packed upper triangle
+	public double get(long index) {
+		if (array != null) {
+			return array[(int) index];
+		}
+		return chunks[(int) (index >>> CHUNK_SHIFT)].get((int) (index & CHUNK_MASK));
+	}
+
+	void set(long index, double value) {
+		if (array != null) {
+			array[(int) index] = value;
+		} else {
+			chunks[(int) (index >>> CHUNK_SHIFT)].put((int) (index & CHUNK_MASK), value);
+		}
+	}
+
+	// position of (i, j), i < j, in the packed upper triangle
+	public long index(int i, int j) {
+		return (long) i * size - (long) i * (i + 1) / 2 + (j - i - 1);
+	}
+
+	// the packed upper triangle itself if it is kept on the heap, a copy of it otherwise
+	public double[] toArray() {
+		if (array != null) {
+			return array;
+		}
+		if (pairCount > MAX_ARRAY_LENGTH) {
+			throw new IllegalStateException("Too many pairs for a single array: " + pairCount);
+		}
+		double[] copy = new double[(int) pairCount];
+		for (int k = 0; k < chunks.length; k++) {
+			DoubleBuffer chunk = chunks[k].duplicate();
+			chunk.rewind();
+			chunk.get(copy, k << CHUNK_SHIFT, chunk.remaining());
+		}
+		return copy;
+	}
+}
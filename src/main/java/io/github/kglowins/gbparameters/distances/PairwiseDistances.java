@@ -0,0 +1,184 @@
+package io.github.kglowins.gbparameters.distances;
+
+import io.github.kglowins.gbparameters.enums.BoundaryMetric;
+import io.github.kglowins.gbparameters.enums.PointGroup;
+import io.github.kglowins.gbparameters.representation.InterfaceMatrix;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Distances between all pairs of a list of boundaries. The upper triangle is split into square tiles of
+ * TILE x TILE pairs, so that a worker keeps reusing the same two short runs of boundaries, and the tiles are
+ * spread over a fork-join pool. What a metric derives from each boundary alone (misorientation quaternions,
+ * plane orbits, octonion embeddings) is computed once per boundary before the tiles.
+ */
+public final class PairwiseDistances {
+
+	private static final int TILE = 32;
+
+	public interface Progress {
+
+		// called from the worker threads after every tile
+		void update(long completedPairs, long totalPairs);
+	}
+
+	private PairwiseDistances() {
+	}
+
+	public static PackedDistanceMatrix compute(List<InterfaceMatrix> boundaries, PointGroup ptGrp,
+											   BoundaryMetric metric, boolean interchange, boolean min) {
+		return compute(boundaries, ptGrp, metric, interchange, min, ForkJoinPool.commonPool(), false, null);
+	}
+
+	public static PackedDistanceMatrix compute(List<InterfaceMatrix> boundaries, PointGroup ptGrp,
+											   BoundaryMetric metric, boolean interchange, boolean min,
+											   ForkJoinPool pool, boolean offHeap, Progress progress) {
+		InterfaceMatrix[] array = boundaries.toArray(new InterfaceMatrix[0]);
+		PackedDistanceMatrix result = new PackedDistanceMatrix(array.length, offHeap);
+
+		int tiles = (array.length + TILE - 1) / TILE;
+		int[] rowTiles = new int[tiles * (tiles + 1) / 2];
+		int[] columnTiles = new int[rowTiles.length];
+		int t = 0;
+		for (int row = 0; row < tiles; row++) {
+			for (int column = row; column < tiles; column++) {
+				rowTiles[t] = row;
+				columnTiles[t] = column;
+				t++;
+			}
+		}
+
+		Job job = new Job(array, ptGrp, metric, interchange, min, result, rowTiles, columnTiles, progress);
+		pool.invoke(new TileTask(job, 0, rowTiles.length));
+		return result;
+	}
+
+	public static double distance(InterfaceMatrix B1, InterfaceMatrix B2, PointGroup ptGrp, BoundaryMetric metric,
+								  boolean interchange, boolean min) {
+		switch (metric) {
+			case AM:
+				return B1.distance(B2, ptGrp, interchange, min);
+			case MISORIENTATION:
+				return B1.distanceMisorSpace(B2, ptGrp, interchange);
+			case PLANE:
+				return B1.distancePlaneSpace(B2, ptGrp, interchange, min);
+			case OCTONION:
+				return OctonionDistance.of(ptGrp).distance(B1, B2, interchange, min);
+			default:
+				throw new IllegalArgumentException("Unknown metric: " + metric);
+		}
+	}
+
+	private static final class Job {
+
+		private final InterfaceMatrix[] boundaries;
+		private final PointGroup ptGrp;
+		private final BoundaryMetric metric;
+		private final boolean interchange;
+		private final boolean min;
+
+		private final PackedDistanceMatrix result;
+		private final int[] rowTiles;
+		private final int[] columnTiles;
+
+		private final Progress progress;
+		private final AtomicLong completed;
+
+		// per-boundary data of the metric, null for the others
+		private final double[] quaternions;
+		private final BoundaryOrbit[] orbits;
+		private final double[] embeddings;
+
+		Job(InterfaceMatrix[] boundaries, PointGroup ptGrp, BoundaryMetric metric, boolean interchange, boolean min,
+			PackedDistanceMatrix result, int[] rowTiles, int[] columnTiles, Progress progress) {
+			this.boundaries = boundaries;
+			this.ptGrp = ptGrp;
+			this.metric = metric;
+			this.interchange = interchange;
+			this.min = min;
+			this.result = result;
+			this.rowTiles = rowTiles;
+			this.columnTiles = columnTiles;
+			this.progress = progress;
+			completed = new AtomicLong();
+
+			List<InterfaceMatrix> list = Arrays.asList(boundaries);
+			quaternions = metric == BoundaryMetric.MISORIENTATION ? MisorientationDistance.quaternions(list) : null;
+			orbits = metric == BoundaryMetric.PLANE ? BoundaryOrbit.of(list, ptGrp) : null;
+			embeddings = metric == BoundaryMetric.OCTONION ? OctonionDistance.embed(list) : null;
+		}
+
+		void computeTile(int tile) {
+			int n = boundaries.length;
+			int rowFrom = rowTiles[tile] * TILE;
+			int rowTo = Math.min(rowFrom + TILE, n);
+			int columnFrom = columnTiles[tile] * TILE;
+			int columnTo = Math.min(columnFrom + TILE, n);
+
+			MisorientationDistance misorientation = MisorientationDistance.of(ptGrp);
+			OctonionDistance octonion = OctonionDistance.of(ptGrp);
+			double[] planes = metric == BoundaryMetric.OCTONION ? new double[octonion.scratchSize()] : null;
+
+			long pairs = 0L;
+			for (int i = rowFrom; i < rowTo; i++) {
+				int j = Math.max(columnFrom, i + 1);
+				long index = result.index(i, j);
+				for (; j < columnTo; j++, index++) {
+					double distance;
+					switch (metric) {
+						case MISORIENTATION:
+							distance = misorientation.distance(quaternions, 4 * i, quaternions, 4 * j, interchange);
+							break;
+						case PLANE:
+							distance = orbits[i].planeDistance(orbits[j], interchange, min);
+							break;
+						case OCTONION:
+							distance = octonion.distance(embeddings, OctonionDistance.EMBEDDING_SIZE * i, embeddings,
+								OctonionDistance.EMBEDDING_SIZE * j, interchange, min, planes);
+							break;
+						default:
+							distance = PairwiseDistances.distance(boundaries[i], boundaries[j], ptGrp, metric,
+								interchange, min);
+					}
+					result.set(index, distance);
+					pairs++;
+				}
+			}
+
+			if (progress != null) {
+				progress.update(completed.addAndGet(pairs), result.pairCount());
+			}
+		}
+	}
+
+	private static final class TileTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Job job;
+		private final int from;
+		private final int to;
+
+		TileTask(Job job, int from, int to) {
+			this.job = job;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= 1) {
+				for (int tile = from; tile < to; tile++) {
+					job.computeTile(tile);
+				}
+			} else {
+				int mid = (from + to) >>> 1;
+				invokeAll(new TileTask(job, from, mid), new TileTask(job, mid, to));
+			}
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package io.github.kglowins.gbparameters.distances;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// counters of a VantagePointTree or BoundaryLshIndex shared by any number of concurrent queries
+public final class QueryStatistics {
+
+	private final LongAdder queries = new LongAdder();
+	private final LongAdder distanceEvaluations = new LongAdder();
+	private final LongAdder candidates = new LongAdder();
+
+	void record(long evaluations, long size) {
+		queries.increment();
+		distanceEvaluations.add(evaluations);
+		candidates.add(size);
+	}
+
+	public long getQueries() {
+		return queries.sum();
+	}
+
+	public long getDistanceEvaluations() {
+		return distanceEvaluations.sum();
+	}
+
+	// distances a linear scan would have evaluated but the tree did not
+	public long getPrunedEvaluations() {
+		return candidates.sum() - distanceEvaluations.sum();
+	}
+
+	public double getPrunedFraction() {
+		long all = candidates.sum();
+		return all > 0L ? (double) getPrunedEvaluations() / all : 0d;
+	}
+
+	public void reset() {
+		queries.reset();
+		distanceEvaluations.reset();
+		candidates.reset();
+	}
+
+	@Override
+	public String toString() {
+		return "queries: " + getQueries()
+			+ ", distance evaluations: " + getDistanceEvaluations()
+			+ ", pruned: " + getPrunedEvaluations()
+			+ String.format(" (%.1f%%)", 100d * getPrunedFraction());
+	}
+}
@@ -0,0 +1,310 @@
+package io.github.kglowins.gbparameters.distances;
+
+import io.github.kglowins.gbparameters.enums.BoundaryMetric;
+import io.github.kglowins.gbparameters.enums.PointGroup;
+import io.github.kglowins.gbparameters.representation.InterfaceMatrix;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/*
+ * Vantage-point tree over boundaries with one of the BoundaryMetric distances as the metric.
+ * These are metrics since the symmetry operators, transposition and inversion act on the boundary space by
+ * isometries, so the triangle inequality makes the pruning exact.
+ *
+ * The tree is kept in two arrays indexed by position in a permutation of the boundaries: the subtree on
+ * positions [lo, hi) has its vantage point at lo, the boundaries not farther from it than threshold[lo] on
+ * [lo + 1, split[lo]) and the others on [split[lo], hi). Subtrees of at most LEAF_SIZE boundaries are scanned.
+ */
+public final class VantagePointTree {
+
+	private static final int LEAF_SIZE = 8;
+
+	// subtrees built by separate tasks, and ones whose distances to the vantage point are computed in parallel
+	private static final int PARALLEL_BUILD_SIZE = 1024;
+
+	@Value
+	public static class Neighbor {
+		int index;
+		double distance;
+	}
+
+	private final InterfaceMatrix[] boundaries;
+	private final PointGroup ptGrp;
+	private final BoundaryMetric metric;
+	private final boolean interchange;
+	private final boolean min;
+
+	// boundaries[order[p]] is at position p
+	private final int[] order;
+	private final double[] threshold;
+	private final int[] split;
+
+	private final long buildDistanceEvaluations;
+
+	private VantagePointTree(InterfaceMatrix[] boundaries, PointGroup ptGrp, BoundaryMetric metric,
+							 boolean interchange, boolean min, ForkJoinPool pool) {
+		this.boundaries = boundaries;
+		this.ptGrp = ptGrp;
+		this.metric = metric;
+		this.interchange = interchange;
+		this.min = min;
+
+		int n = boundaries.length;
+		order = new int[n];
+		for (int p = 0; p < n; p++) {
+			order[p] = p;
+		}
+		threshold = new double[n];
+		split = new int[n];
+
+		AtomicLong evaluations = new AtomicLong();
+		BuildTask root = new BuildTask(0, n, new double[n], evaluations);
+		if (pool == null) {
+			root.compute();
+		} else {
+			pool.invoke(root);
+		}
+		buildDistanceEvaluations = evaluations.get();
+	}
+
+	public static VantagePointTree build(List<InterfaceMatrix> boundaries, PointGroup ptGrp, BoundaryMetric metric,
+										 boolean interchange, boolean min) {
+		return new VantagePointTree(boundaries.toArray(new InterfaceMatrix[0]), ptGrp, metric, interchange, min,
+			null);
+	}
+
+	public static VantagePointTree buildParallel(List<InterfaceMatrix> boundaries, PointGroup ptGrp,
+												 BoundaryMetric metric, boolean interchange, boolean min,
+												 ForkJoinPool pool) {
+		return new VantagePointTree(boundaries.toArray(new InterfaceMatrix[0]), ptGrp, metric, interchange, min,
+			pool);
+	}
+
+	public int size() {
+		return boundaries.length;
+	}
+
+	public InterfaceMatrix get(int index) {
+		return boundaries[index];
+	}
+
+	public long getBuildDistanceEvaluations() {
+		return buildDistanceEvaluations;
+	}
+
+	// the k boundaries nearest to the query, nearest first; indices refer to the list the tree was built from
+	public List<Neighbor> nearest(InterfaceMatrix query, int k) {
+		return nearest(query, k, null);
+	}
+
+	public List<Neighbor> nearest(InterfaceMatrix query, int k, QueryStatistics statistics) {
+		if (k <= 0) {
+			throw new IllegalArgumentException("k must be positive: " + k);
+		}
+		Search search = new Search(query, k, Double.POSITIVE_INFINITY);
+		search.visit(0, boundaries.length);
+		return search.finish(statistics);
+	}
+
+	// all boundaries within the given distance of the query, nearest first
+	public List<Neighbor> within(InterfaceMatrix query, double radius) {
+		return within(query, radius, null);
+	}
+
+	public List<Neighbor> within(InterfaceMatrix query, double radius, QueryStatistics statistics) {
+		Search search = new Search(query, Integer.MAX_VALUE, radius);
+		search.visit(0, boundaries.length);
+		return search.finish(statistics);
+	}
+
+	private double distance(InterfaceMatrix B1, InterfaceMatrix B2) {
+		return PairwiseDistances.distance(B1, B2, ptGrp, metric, interchange, min);
+	}
+
+	private final class Search {
+
+		private final InterfaceMatrix query;
+		private final int k;
+
+		// largest distance a result may have; shrinks to that of the current k-th neighbour once there are k
+		private double tau;
+
+		// farthest on top
+		private final PriorityQueue<Neighbor> found;
+		private long evaluations;
+
+		Search(InterfaceMatrix query, int k, double radius) {
+			this.query = query;
+			this.k = k;
+			tau = radius;
+			found = new PriorityQueue<>(Comparator.comparingDouble(Neighbor::getDistance).reversed());
+			evaluations = 0L;
+		}
+
+		void visit(int lo, int hi) {
+			if (hi - lo <= LEAF_SIZE) {
+				for (int p = lo; p < hi; p++) {
+					offer(p, evaluate(p));
+				}
+				return;
+			}
+
+			double d = evaluate(lo);
+			offer(lo, d);
+
+			double mu = threshold[lo];
+			int mid = split[lo];
+			if (d <= mu) {
+				if (d - tau <= mu) {
+					visit(lo + 1, mid);
+				}
+				if (d + tau >= mu) {
+					visit(mid, hi);
+				}
+			} else {
+				if (d + tau >= mu) {
+					visit(mid, hi);
+				}
+				if (d - tau <= mu) {
+					visit(lo + 1, mid);
+				}
+			}
+		}
+
+		private double evaluate(int position) {
+			evaluations++;
+			return distance(query, boundaries[order[position]]);
+		}
+
+		private void offer(int position, double d) {
+			if (d > tau) {
+				return;
+			}
+			found.add(new Neighbor(order[position], d));
+			if (found.size() > k) {
+				found.poll();
+			}
+			if (found.size() == k) {
+				tau = Math.min(tau, found.peek().getDistance());
+			}
+		}
+
+		List<Neighbor> finish(QueryStatistics statistics) {
+			if (statistics != null) {
+				statistics.record(evaluations, boundaries.length);
+			}
+			List<Neighbor> result = new ArrayList<>(found);
+			result.sort(Comparator.comparingDouble(Neighbor::getDistance).thenComparingInt(Neighbor::getIndex));
+			return result;
+		}
+	}
+
+	private final class BuildTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int lo;
+		private final int hi;
+
+		// distances to the vantage point, by position; shared by all tasks, which work on disjoint ranges
+		private final double[] distances;
+		private final AtomicLong evaluations;
+
+		BuildTask(int lo, int hi, double[] distances, AtomicLong evaluations) {
+			this.lo = lo;
+			this.hi = hi;
+			this.distances = distances;
+			this.evaluations = evaluations;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo <= LEAF_SIZE) {
+				return;
+			}
+
+			// a pseudo-random vantage point, the same however the build is scheduled
+			swap(lo, lo + (int) (mix(lo * 31L + hi) % (hi - lo)));
+
+			InterfaceMatrix vantage = boundaries[order[lo]];
+			if (hi - lo > PARALLEL_BUILD_SIZE && inForkJoinPool()) {
+				IntStream.range(lo + 1, hi).parallel()
+					.forEach(p -> distances[p] = distance(vantage, boundaries[order[p]]));
+			} else {
+				for (int p = lo + 1; p < hi; p++) {
+					distances[p] = distance(vantage, boundaries[order[p]]);
+				}
+			}
+			evaluations.addAndGet(hi - lo - 1);
+
+			int mid = (lo + 1 + hi) >>> 1;
+			select(lo + 1, hi, mid);
+			threshold[lo] = distances[mid];
+			split[lo] = mid;
+
+			BuildTask inside = new BuildTask(lo + 1, mid, distances, evaluations);
+			BuildTask outside = new BuildTask(mid, hi, distances, evaluations);
+			if (hi - lo > PARALLEL_BUILD_SIZE && inForkJoinPool()) {
+				invokeAll(inside, outside);
+			} else {
+				inside.compute();
+				outside.compute();
+			}
+		}
+
+		// partially sorts [from, to) by distance so that position nth holds the value it would have if sorted
+		private void select(int from, int to, int nth) {
+			int left = from;
+			int right = to - 1;
+			while (left < right) {
+				double pivot = distances[(left + right) >>> 1];
+				int i = left;
+				int j = right;
+				while (i <= j) {
+					while (distances[i] < pivot) {
+						i++;
+					}
+					while (distances[j] > pivot) {
+						j--;
+					}
+					if (i <= j) {
+						swap(i, j);
+						i++;
+						j--;
+					}
+				}
+				if (nth <= j) {
+					right = j;
+				} else if (nth >= i) {
+					left = i;
+				} else {
+					return;
+				}
+			}
+		}
+
+		private void swap(int p, int q) {
+			int index = order[p];
+			order[p] = order[q];
+			order[q] = index;
+			double d = distances[p];
+			distances[p] = distances[q];
+			distances[q] = d;
+		}
+	}
+
+	// non-negative hash of a long (the finalizer of SplitMix64)
+	private static long mix(long z) {
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		return (z ^ (z >>> 33)) >>> 1;
+	}
+}
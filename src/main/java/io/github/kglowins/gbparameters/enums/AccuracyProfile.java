@@ -0,0 +1,50 @@
+package io.github.kglowins.gbparameters.enums;
+
+/*
+ * Accuracy/speed trade-offs of the AM-distance minimizations. The evaluation limit applies to each
+ * minimization and the time budget (0 for none) to each characterized boundary; a minimization that hits
+ * either returns the best point found so far and the characteristics are marked as approximate.
+ */
+public enum AccuracyProfile {
+	SCREENING(1e-3d, 1e-6d, 500, 1d, 50L),
+	DEFAULT(1e-4d, 1e-8d, Integer.MAX_VALUE, 1d, 0L),
+	HIGH_PRECISION(1e-8d, 1e-12d, 200000, 0.5d, 0L);
+
+	private final double simplexTolerance;
+	private final double gradientTolerance;
+	private final int maxEvaluations;
+	private final double simplexStep;
+	private final long timeBudgetMillis;
+
+	AccuracyProfile(double simplexTolerance, double gradientTolerance, int maxEvaluations, double simplexStep,
+					long timeBudgetMillis) {
+		this.simplexTolerance = simplexTolerance;
+		this.gradientTolerance = gradientTolerance;
+		this.maxEvaluations = maxEvaluations;
+		this.simplexStep = simplexStep;
+		this.timeBudgetMillis = timeBudgetMillis;
+	}
+
+	// relative and absolute convergence threshold of the Nelder-Mead simplex
+	public double getSimplexTolerance() {
+		return simplexTolerance;
+	}
+
+	// relative convergence threshold of the conjugate-gradient path
+	public double getGradientTolerance() {
+		return gradientTolerance;
+	}
+
+	public int getMaxEvaluations() {
+		return maxEvaluations;
+	}
+
+	// side length of the initial simplex, in radians
+	public double getSimplexStep() {
+		return simplexStep;
+	}
+
+	public long getTimeBudgetMillis() {
+		return timeBudgetMillis;
+	}
+}
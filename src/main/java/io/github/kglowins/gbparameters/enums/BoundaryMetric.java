@@ -0,0 +1,9 @@
+package io.github.kglowins.gbparameters.enums;
+
+/*
+ * The symmetry-aware distances of InterfaceMatrix: distance, distanceMisorSpace and distancePlaneSpace, and the
+ * distance between the quaternion-pair embeddings of OctonionDistance
+ */
+public enum BoundaryMetric {
+	AM, MISORIENTATION, PLANE, OCTONION
+}
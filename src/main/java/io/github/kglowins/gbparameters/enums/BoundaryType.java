@@ -0,0 +1,5 @@
+package io.github.kglowins.gbparameters.enums;
+
+public enum BoundaryType {
+	TILT, TWIST, SYMMETRIC, TILT180
+}
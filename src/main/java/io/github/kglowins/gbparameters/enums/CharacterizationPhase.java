@@ -0,0 +1,5 @@
+package io.github.kglowins.gbparameters.enums;
+
+public enum CharacterizationPhase {
+	EQUIVALENTS, APPROXIMATE_DISTANCES, DECOMPOSITION, CSL_CHECK, MINIMIZATION
+}
@@ -0,0 +1,5 @@
+package io.github.kglowins.gbparameters.enums;
+
+public enum MinimizationMode {
+	SIMPLEX, GRADIENT
+}
@@ -0,0 +1,30 @@
+package io.github.kglowins.gbparameters.enums;
+
+/*
+ * Layouts of rotations in flat double[] buffers, as converted by RotationArrays: each rotation takes getSize()
+ * consecutive entries, in the order of the accessors of the corresponding class.
+ */
+public enum RotationFormat {
+	// phi1, Phi, phi2 in radians, as EulerAngles
+	EULER_ANGLES(3),
+	// q0, q1, q2, q3
+	QUATERNION(4),
+	// e00, e01, e02, e10, ..., e22
+	MATRIX(9),
+	// r1, r2, r3, all infinite for half-turns
+	RODRIGUES(3),
+	// x, y, z of the axis, then the angle in radians
+	AXIS_ANGLE(4),
+	// rho1, rho2, rho3 of the homochoric parameters (IsochoricParams)
+	ISOCHORIC(3);
+
+	private final int size;
+
+	RotationFormat(int size) {
+		this.size = size;
+	}
+
+	public int getSize() {
+		return size;
+	}
+}
@@ -2,9 +2,11 @@ package io.github.kglowins.gbparameters.gbcd;
 
 import io.github.kglowins.gbparameters.representation.AxisAngle;
 import io.github.kglowins.gbparameters.representation.Matrix3x3;
+import io.github.kglowins.gbparameters.representation.Quaternion;
 import io.github.kglowins.gbparameters.enums.PointGroup;
 import io.github.kglowins.gbparameters.representation.UnitVector;
 import io.github.kglowins.gbparameters.utils.SaferMath;
+import io.github.kglowins.gbparameters.utils.SymmetryTable;
 import io.github.kglowins.gbparameters.utils.Transformations;
 import java.awt.geom.Point2D;
 import java.util.AbstractMap;
@@ -25,20 +27,30 @@ public class GbcdCharacteristicGbFinder {
 
     public GbcdCharacteristicGbs find(Matrix3x3 fixedM, PointGroup pointGroup) {
 
-        Matrix3x3[] symmetryOperations = Transformations.getSymmetryTransformations(pointGroup);
+        SymmetryTable symmetryOperations = Transformations.getSymmetryTable(pointGroup);
 
         List<GbcdGbLocation> uniqueTwistGbLocations = new ArrayList<>();
         List<GbcdGbLocation> uniqueSymmetricGbLocations = new ArrayList<>();
 
-        for (Matrix3x3 C1 : symmetryOperations) {
-            for (Matrix3x3 C2 : symmetryOperations) {
+        // the misorientation and its equivalent C1 M C2^T as quaternions, c1 q c2*, then c1 and c2
+        double[] q = new double[16];
+        Quaternion.components(fixedM, q, 0);
 
-                Matrix3x3 M = new Matrix3x3(fixedM);
-                M.leftMul(C1);
-                M.timesTransposed(C2);
+        for (int c1 = 0; c1 < symmetryOperations.size(); c1++) {
+            Matrix3x3 C1 = symmetryOperations.matrix(c1);
+            for (int i = 0; i < 4; i++) {
+                q[8 + i] = symmetryOperations.quaternion(c1, i);
+            }
+            for (int c2 = 0; c2 < symmetryOperations.size(); c2++) {
+                for (int i = 0; i < 4; i++) {
+                    q[12 + i] = symmetryOperations.quaternion(c2, i);
+                }
+
+                Quaternion.mul(q, 8, q, 0, q, 4);
+                Quaternion.mulConjugate(q, 4, q, 12, q, 4);
 
                 AxisAngle misorAxisAngle = new AxisAngle();
-                misorAxisAngle.set(M);
+                Quaternion.axisAngle(q, 4, misorAxisAngle);
 
                 UnitVector misorAxis = new UnitVector(misorAxisAngle.axis());
                 misorAxis.transposedTransform(C1);
@@ -4,6 +4,7 @@ import io.github.kglowins.gbparameters.enums.PointGroup;
 import io.github.kglowins.gbparameters.representation.AxisAngle;
 import io.github.kglowins.gbparameters.representation.Matrix3x3;
 import io.github.kglowins.gbparameters.representation.UnitVector;
+import io.github.kglowins.gbparameters.utils.SymmetryTable;
 import io.github.kglowins.gbparameters.utils.Transformations;
 
 import java.awt.geom.Point2D;
@@ -22,7 +23,6 @@ public class GbcdSymmetriesFinder {
         List<List<Point2D>> mirrorLines = new ArrayList<>();
 
         List<Matrix3x3> groupOperators = getGroupOperators(M, pointGroup);
-        completeGroup(groupOperators);
 
         for (Matrix3x3 g : groupOperators) {
             AxisAngle axisAngle = new AxisAngle();
@@ -52,68 +52,88 @@ public class GbcdSymmetriesFinder {
         return GbcdSymmetries.of(symmetryAxes, mirrorLines);
     }
 
-    private void completeGroup(List<Matrix3x3> groupOperators) {
-        boolean hasBeenAdded = true;
-        while (hasBeenAdded) {
-            hasBeenAdded = false;
-            List<Matrix3x3> groupCp = new ArrayList<>(groupOperators);
-
-            for (Matrix3x3 g1 : groupOperators) {
-                for (Matrix3x3 g2 : groupOperators) {
-                    Matrix3x3 product1 = new Matrix3x3(g1);
-                    Matrix3x3 product2 = new Matrix3x3(g1);
-                    product1.times(g2);
-                    product2.leftMul(g2);
-                    if (!listContains(groupCp, product1)) {
-                        groupCp.add(product1);
-                        hasBeenAdded = true;
-                    }
-                    if (!listContains(groupCp, product2)) {
-                        groupCp.add(product2);
-                        hasBeenAdded = true;
-                    }
-                }
+    /*
+     * The crystal operators C1 with C1 M C2^T = M for some C2, and the rotations g = M C2 with C1 M^T C2^T = M.
+     * Either condition fixes C2 given C1, C2 = M^T C1 M or C2 = M^T C1 M^T, so such a g is also C1 M^T and
+     * only N products are compared instead of N^2.
+     */
+    private List<Matrix3x3> getGroupOperators(Matrix3x3 M, PointGroup pointGroup) {
+        SymmetryTable table = Transformations.getSymmetryTable(pointGroup);
+
+        Matrix3x3 MT = new Matrix3x3(M);
+        MT.transpose();
+
+        List<int[]> fixing = new ArrayList<>();
+        List<int[]> swapping = new ArrayList<>();
+        for (int a = 0; a < table.size(); a++) {
+            Matrix3x3 C2 = table.matrix(a);
+            C2.leftMul(MT);
+            C2.times(M);
+            int b = table.indexOf(C2);
+            if (b >= 0) {
+                fixing.add(new int[]{a, b});
+            }
+
+            Matrix3x3 C2Swap = table.matrix(a);
+            C2Swap.leftMul(MT);
+            C2Swap.times(MT);
+            b = table.indexOf(C2Swap);
+            if (b >= 0) {
+                swapping.add(new int[]{a, b});
             }
-            groupOperators = new ArrayList<>(groupCp);
         }
+        return completeGroup(table, M, fixing, swapping);
     }
 
-    private List<Matrix3x3> getGroupOperators(Matrix3x3 M, PointGroup pointGroup) {
-        Matrix3x3[] symmetryOperations = Transformations.getSymmetryTransformations(pointGroup);
-        List<Matrix3x3> groupOperators = new ArrayList<>();
-
-        for (Matrix3x3 C1 : symmetryOperations) {
-            for (Matrix3x3 C2 : symmetryOperations) {
-
-                Matrix3x3 Mcp = new Matrix3x3(M);
-                Mcp.leftMul(C1);
-                Mcp.timesTransposed(C2);
+    /*
+     * The group generated by the operators (C1, C2) of both kinds, found with the Cayley table of the point
+     * group. A product of two rotations of the second kind, (C1 M^T)(M C2'), is a crystal operator, so the group
+     * is K + g1 K for the crystal operators K in it and g1 = M C2 = C1 M^T of the first pair of the second kind.
+     * By Schreier's lemma K is generated by the C1 of the first kind, their conjugates g1 C1 g1^T = C1' C2 C1'^T,
+     * and g g1^T = C1 C1'^T and g1 g = C1' C2 for the rotations g of the second kind. When g1 is itself a
+     * crystal operator (then so is M, up to symmetry) the whole group consists of crystal operators.
+     */
+    private static List<Matrix3x3> completeGroup(SymmetryTable table, Matrix3x3 M, List<int[]> fixing,
+                                                 List<int[]> swapping) {
+        List<Integer> generators = new ArrayList<>();
+        for (int[] pair : fixing) {
+            generators.add(pair[0]);
+        }
 
-                if (Mcp.isEqualTo(M) && !listContains(groupOperators, C1)) {
-                    groupOperators.add(C1);
+        Matrix3x3 g1 = null;
+        if (!swapping.isEmpty()) {
+            int[] first = swapping.get(0);
+            g1 = new Matrix3x3(M);
+            g1.times(table.matrix(first[1]));
+
+            int g1Index = table.indexOf(g1);
+            if (g1Index >= 0) {
+                generators.add(g1Index);
+                g1 = null;
+            } else {
+                int a1Inverse = table.inverse(first[0]);
+                for (int[] pair : fixing) {
+                    generators.add(table.product(table.product(first[0], pair[1]), a1Inverse));
                 }
-
-                Matrix3x3 MTcp = new Matrix3x3(M);
-                MTcp.transpose();
-                MTcp.leftMul(C1);
-                MTcp.timesTransposed(C2);
-
-                if (MTcp.isEqualTo(M)) {
-                    Matrix3x3 MC = new Matrix3x3(M);
-                    MC.times(C2);
-                    if (!listContains(groupOperators, MC)) {
-                        groupOperators.add(MC);
-                    }
+                for (int[] pair : swapping) {
+                    generators.add(table.product(pair[0], a1Inverse));
+                    generators.add(table.product(first[0], pair[1]));
                 }
             }
         }
-        return groupOperators;
-    }
 
-    private static boolean listContains(List<Matrix3x3> l, Matrix3x3 m) {
-        for (Matrix3x3 r : l) {
-            if (r.isEqualTo(m)) return true;
+        int[] K = table.closure(generators.stream().mapToInt(Integer::intValue).toArray());
+        List<Matrix3x3> groupOperators = new ArrayList<>();
+        for (int k : K) {
+            groupOperators.add(table.matrix(k));
         }
-        return false;
+        if (g1 != null) {
+            for (int k : K) {
+                Matrix3x3 g = new Matrix3x3(g1);
+                g.times(table.matrix(k));
+                groupOperators.add(g);
+            }
+        }
+        return groupOperators;
     }
 }
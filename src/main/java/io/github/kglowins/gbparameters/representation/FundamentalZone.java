@@ -0,0 +1,261 @@
+package io.github.kglowins.gbparameters.representation;
+
+import io.github.kglowins.gbparameters.enums.PointGroup;
+import io.github.kglowins.gbparameters.utils.Transformations;
+
+/*
+ * Direct reduction of misorientations to the fundamental zone, as an alternative to trying every
+ * (transposition, C1, C2) in turn. The equivalents of M are C1 M C2^T, or with quaternions c1 q c2*, and
+ * c1 q c2* = c2 (c2* c1 q) c2*, so the reduction takes two steps of N operators each:
+ *
+ *   1. the operator c with the largest |(c q)_0|, i.e. the smallest rotation angle, which puts the Rodrigues
+ *      vector in the fundamental zone of the rotation group;
+ *   2. the conjugation d (c q) d* (and, if allowed, the transposition q -> q*) that keeps the angle and moves
+ *      the Rodrigues vector into the standard stereographic triangle. The triangle is taken to be the set of
+ *      vectors r with r.v >= (g r).v for every operator g of the group extended by the inversion, where v is a
+ *      fixed direction inside it. For the m-3m, 6/mmm and 4/mmm groups these are exactly the conditions
+ *      of Matrix3x3.getDisorientation; for mmm (where getDisorientation stops at the fundamental zone) the
+ *      triangle is the positive octant, and for 2/m and -3m it is one of the equivalent domains.
+ */
+public final class FundamentalZone {
+
+	// operators whose |q0| is within this of the largest one are all tried in the second step
+	private static final double TIE = 1e-12d;
+
+	private static final FundamentalZone[] ZONES = new FundamentalZone[PointGroup.values().length];
+
+	static {
+		for (PointGroup pointGroup : PointGroup.values()) {
+			ZONES[pointGroup.ordinal()] = new FundamentalZone(pointGroup);
+		}
+	}
+
+	private final PointGroup pointGroup;
+	private final Matrix3x3[] setC;
+
+	// quaternions of the operators, 4 per operator
+	private final double[] quaternions;
+
+	// C^T v for every operator C, 3 per operator
+	private final double[] directions;
+
+	private FundamentalZone(PointGroup pointGroup) {
+		this.pointGroup = pointGroup;
+		setC = Transformations.getSymmetryTransformations(pointGroup);
+
+		final double[] v = triangleDirection(pointGroup);
+
+		quaternions = new double[4 * setC.length];
+		directions = new double[3 * setC.length];
+		for (int k = 0; k < setC.length; k++) {
+			final Matrix3x3 C = setC[k];
+			Quaternion.components(C, quaternions, 4 * k);
+			directions[3 * k] = C.e00() * v[0] + C.e10() * v[1] + C.e20() * v[2];
+			directions[3 * k + 1] = C.e01() * v[0] + C.e11() * v[1] + C.e21() * v[2];
+			directions[3 * k + 2] = C.e02() * v[0] + C.e12() * v[1] + C.e22() * v[2];
+		}
+	}
+
+	public static FundamentalZone of(PointGroup pointGroup) {
+		return ZONES[pointGroup.ordinal()];
+	}
+
+	public PointGroup pointGroup() {
+		return pointGroup;
+	}
+
+	// a direction inside the standard stereographic triangle, off all of its edges
+	private static double[] triangleDirection(PointGroup pointGroup) {
+		switch (pointGroup) {
+			case _6MMM:
+				return direction(Math.toRadians(15d));
+			case _4MMM:
+				return direction(Math.toRadians(22.5d));
+			case _3M:
+				return direction(Math.toRadians(60d));
+			default:
+				return new double[]{3d, 2d, 1d};
+		}
+	}
+
+	private static double[] direction(double azimuth) {
+		return new double[]{Math.cos(azimuth), Math.sin(azimuth), 0.5d};
+	}
+
+	/*
+	 * Picks (transposition, c, d) for the quaternion q; returns them packed as transposition | c << 1 | d << 8
+	 * and writes d (c q) d*, or d (c q*) d*, with a non-negative scalar part to reduced (if not null).
+	 */
+	private int reduce(double q0, double q1, double q2, double q3, boolean transposition, boolean sst,
+					   double[] reduced) {
+
+		final int n = setC.length;
+
+		int bestChoice = 0;
+		double bestScore = Double.NEGATIVE_INFINITY;
+		double b0 = q0, b1 = q1, b2 = q2, b3 = q3;
+
+		final int transpositions = transposition ? 2 : 1;
+		for (int t = 0; t < transpositions; t++) {
+
+			// q* for the transposed boundary
+			final double s = t == 0 ? 1d : -1d;
+			final double v1 = s * q1;
+			final double v2 = s * q2;
+			final double v3 = s * q3;
+
+			double maxAbsScalar = -1d;
+			for (int c = 0; c < n; c++) {
+				maxAbsScalar = Math.max(maxAbsScalar, Math.abs(scalarOfProduct(c, q0, v1, v2, v3)));
+			}
+
+			for (int c = 0; c < n; c++) {
+				final double absScalar = Math.abs(scalarOfProduct(c, q0, v1, v2, v3));
+				if (absScalar < maxAbsScalar - TIE) {
+					continue;
+				}
+
+				// c q, with a non-negative scalar part
+				final int i = 4 * c;
+				final double c0 = quaternions[i], c1 = quaternions[i + 1], c2 = quaternions[i + 2],
+					c3 = quaternions[i + 3];
+				double p0 = c0 * q0 - c1 * v1 - c2 * v2 - c3 * v3;
+				double p1 = c0 * v1 + q0 * c1 + c2 * v3 - c3 * v2;
+				double p2 = c0 * v2 + q0 * c2 + c3 * v1 - c1 * v3;
+				double p3 = c0 * v3 + q0 * c3 + c1 * v2 - c2 * v1;
+				if (p0 < 0d) {
+					p0 = -p0;
+					p1 = -p1;
+					p2 = -p2;
+					p3 = -p3;
+				}
+
+				if (!sst) {
+					return choose(t, c, 0, p0, p1, p2, p3, reduced);
+				}
+
+				// the vector part of d p d* is D p_v, so its score (D p_v).v is p_v.(D^T v)
+				for (int d = 0; d < n; d++) {
+					final int j = 3 * d;
+					final double score = p1 * directions[j] + p2 * directions[j + 1] + p3 * directions[j + 2];
+					if (score > bestScore) {
+						bestScore = score;
+						bestChoice = t | c << 1 | d << 8;
+						b0 = p0;
+						b1 = p1;
+						b2 = p2;
+						b3 = p3;
+					}
+				}
+			}
+		}
+
+		return choose(bestChoice & 1, (bestChoice >>> 1) & 0x7f, bestChoice >>> 8, b0, b1, b2, b3, reduced);
+	}
+
+	private int choose(int t, int c, int d, double p0, double p1, double p2, double p3, double[] reduced) {
+		if (reduced != null) {
+			// d p d*: the scalar part stays, the vector part is rotated by D
+			final Matrix3x3 D = setC[d];
+			reduced[0] = p0;
+			reduced[1] = D.e00() * p1 + D.e01() * p2 + D.e02() * p3;
+			reduced[2] = D.e10() * p1 + D.e11() * p2 + D.e12() * p3;
+			reduced[3] = D.e20() * p1 + D.e21() * p2 + D.e22() * p3;
+		}
+		return t | c << 1 | d << 8;
+	}
+
+	// scalar part of c q
+	private double scalarOfProduct(int c, double q0, double q1, double q2, double q3) {
+		final int i = 4 * c;
+		return quaternions[i] * q0 - quaternions[i + 1] * q1 - quaternions[i + 2] * q2 - quaternions[i + 3] * q3;
+	}
+
+	// the disorientation of M, i.e. its equivalent with both the symmetry and the switching symmetry applied
+	public Matrix3x3 disorientation(Matrix3x3 M) {
+
+		final double[] q = new double[4];
+		Quaternion.components(M, q, 0);
+		final int choice = reduce(q[0], q[1], q[2], q[3], true, true, null);
+
+		final Matrix3x3 result = new Matrix3x3(M);
+		if ((choice & 1) != 0) {
+			result.transpose();
+		}
+		final Matrix3x3 C = setC[(choice >>> 1) & 0x7f];
+		final Matrix3x3 D = setC[choice >>> 8];
+		result.leftMul(C);
+		result.leftMul(D);
+		result.timesTransposed(D);
+		return result;
+	}
+
+	// equivalent of B whose misorientation is in the fundamental zone, and in the standard triangle if sst is set
+	public InterfaceMatrix representative(InterfaceMatrix B, boolean sst) {
+
+		final double[] q = new double[4];
+		Quaternion.components(B.M(), q, 0);
+		final int choice = reduce(q[0], q[1], q[2], q[3], sst, sst, null);
+
+		final InterfaceMatrix result = new InterfaceMatrix(B);
+		if ((choice & 1) != 0) {
+			result.transpose();
+		}
+		final Matrix3x3 C = setC[(choice >>> 1) & 0x7f];
+		final Matrix3x3 D = setC[choice >>> 8];
+		result.applySymmetry1(C);
+		result.applySymmetry1(D);
+		result.applySymmetry2(D);
+		return result;
+	}
+
+	/*
+	 * Replaces the quaternions (q0, q1, q2, q3) at offsets 4 * from, ..., 4 * (to - 1) with those of their
+	 * disorientations, with non-negative scalar parts.
+	 */
+	public void disorientations(double[] quaternions, int from, int to) {
+		final double[] reduced = new double[4];
+		for (int k = from; k < to; k++) {
+			final int i = 4 * k;
+			reduce(quaternions[i], quaternions[i + 1], quaternions[i + 2], quaternions[i + 3], true, true, reduced);
+			System.arraycopy(reduced, 0, quaternions, i, 4);
+		}
+	}
+
+	public void disorientations(double[] quaternions) {
+		disorientations(quaternions, 0, quaternions.length / 4);
+	}
+
+	// whether M is in the fundamental zone and, if sst is set, in the standard triangle, up to the tolerance
+	public boolean contains(Matrix3x3 M, boolean sst, double tolerance) {
+
+		final double[] q = new double[4];
+		Quaternion.components(M, q, 0);
+		final double s = q[0] < 0d ? -1d : 1d;
+		final double q0 = s * q[0], q1 = s * q[1], q2 = s * q[2], q3 = s * q[3];
+
+		for (int c = 0; c < setC.length; c++) {
+			if (Math.abs(scalarOfProduct(c, q0, q1, q2, q3)) > q0 + tolerance) {
+				return false;
+			}
+		}
+		if (!sst) {
+			return true;
+		}
+
+		// the identity comes first, so the first score is that of q itself
+		final double own = q1 * directions[0] + q2 * directions[1] + q3 * directions[2];
+		for (int d = 0; d < setC.length; d++) {
+			final int j = 3 * d;
+			final double score = q1 * directions[j] + q2 * directions[j + 1] + q3 * directions[j + 2];
+			if (Math.abs(score) > own + tolerance) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public boolean contains(Matrix3x3 M, boolean sst) {
+		return contains(M, sst, 1e-9d);
+	}
+}
@@ -1,11 +1,15 @@
 package io.github.kglowins.gbparameters.representation;
 
+import io.github.kglowins.gbparameters.distances.BoundaryOrbit;
+import io.github.kglowins.gbparameters.distances.MisorientationDistance;
 import io.github.kglowins.gbparameters.enums.PointGroup;
 import io.github.kglowins.gbparameters.utils.SaferMath;
+import io.github.kglowins.gbparameters.utils.SymmetryTable;
 import io.github.kglowins.gbparameters.utils.Transformations;
 
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
+import java.util.List;
 import java.util.Locale;
 
 public class InterfaceMatrix {
@@ -87,6 +91,21 @@ public class InterfaceMatrix {
     	M.timesTransposed(C2);    	
     }
     
+    
+    // the same for operators that are signed permutations, without multiplications
+    public final void applySymmetry1(SignedPermutation C1) {
+    	
+    	C1.transform(m1);
+    	C1.leftMul(M);
+    }
+    
+    
+    public final void applySymmetry2(SignedPermutation C2) {
+    	
+    	C2.transform(m2);
+    	C2.timesTransposed(M);
+    }
+    
               
     public final String toHTMLTable() {
     	
@@ -101,9 +120,158 @@ public class InterfaceMatrix {
     
     public final double distance(InterfaceMatrix other, PointGroup ptGrp, boolean interchange, boolean min) {
     	
+    	final SymmetryTable setC = Transformations.getSymmetryTable(ptGrp);
+    	
+    	double minDist = minDistanceSq(this, other, setC, min, INFTY, false);
+    	
+    	if(interchange) {
+    		final InterfaceMatrix otherT = new InterfaceMatrix(other);
+    		otherT.transpose();
+    		minDist = Math.min(minDist, minDistanceSq(this, otherT, setC, min, minDist, false));
+    	}
+    	
+    	return Math.sqrt(minDist);
+    }
+    
+    
+    /*
+     * Whether distance(other, ptGrp, interchange, min) <= tol. The misorientation and plane space distances
+     * are lower bounds of the two terms of the AM distance, so pairs farther apart than
+     * sqrt(misorientation^2 + planes^2) are rejected before any equivalents are compared, and the scan over
+     * the equivalents stops at the first one within the tolerance.
+     */
+    public final boolean isWithin(InterfaceMatrix other, PointGroup ptGrp, double tol, boolean interchange, boolean min) {
+    	
+    	final double tolSq = tol * tol;
+    	
+    	final double omega = MisorientationDistance.of(ptGrp).distance(this, other, interchange);
+    	if(omega * omega > tolSq) return false;
+    	
+    	final double planes = distancePlaneSpace(other, ptGrp, interchange, min);
+    	if(omega * omega + planes * planes > tolSq) return false;
+    	
+    	final SymmetryTable setC = Transformations.getSymmetryTable(ptGrp);
+    	
+    	// the first equivalent with a squared distance below the cap ends the scan
+    	final double cap = Math.nextUp(tolSq);
+    	if(minDistanceSq(this, other, setC, min, cap, true) < cap) return true;
+    	
+    	if(interchange) {
+    		final InterfaceMatrix otherT = new InterfaceMatrix(other);
+    		otherT.transpose();
+    		return minDistanceSq(this, otherT, setC, min, cap, true) < cap;
+    	}
+    	return false;
+    }
+    
+    
+    public final boolean isWithinMisorSpace(InterfaceMatrix other, PointGroup ptGrp, double tol, boolean interchange) {
+    	
+    	return MisorientationDistance.of(ptGrp).isWithin(this, other, tol, interchange);
+    }
+    
+    
+    public final boolean isWithinPlaneSpace(InterfaceMatrix other, PointGroup ptGrp, double tol, boolean interchange, boolean min) {
+    	
+    	return distancePlaneSpace(other, ptGrp, interchange, min) <= tol;
+    }
+    
+    
+    /*
+     * The AM distance does not change when the same symmetry operator is applied to the first (or the second)
+     * crystal of both boundaries, and neither when both are transposed or both are inverted. Hence it is enough
+     * to keep B1 fixed and go over the equivalents C2 B2 C3^T and their inversions, instead of all products
+     * C1 x C2 x C3 for every transposition and inversion of both boundaries.
+     * 
+     * With X = M2 C3^T and Y = C2^T M1, the misorientation trace tr(C2 M2 C3^T M1^T) is the entrywise product
+     * of X and Y, and the plane terms depend on C2 or C3 alone, so they are tabulated beforehand.
+     * 
+     * Only squared distances below the cap are looked for; if none is, the cap is returned. With firstBelowCap,
+     * the first one found is returned instead of the minimum.
+     */
+    private static double minDistanceSq(InterfaceMatrix B1, InterfaceMatrix B2, SymmetryTable setC, boolean min,
+    		double cap, boolean firstBelowCap) {
+    	
+    	final int n = setC.size();
+    	
+    	final double[] Y = new double[9 * n];
+    	final double[] X = new double[9 * n];
+    	
+    	final double[] theta1Sq = new double[n];
+    	final double[] theta1SqMinus = new double[n];
+    	final double[] theta2Sq = new double[n];
+    	final double[] theta2SqMinus = new double[n];
+    	
+    	final Matrix3x3 M1 = B1.M();
+    	final Matrix3x3 M2 = B2.M();
+    	
+    	for(int k = 0; k < n; k++) {
+    		
+    		final SignedPermutation P = setC.signedPermutation(k);
+    		
+    		if(P != null) {
+    			// row column(r) of C^T M1 is row r of M1 times sign(r), column i of M2 C^T is column column(i) of M2 times sign(i)
+    			for(int r = 0; r < 3; r++) for(int j = 0; j < 3; j++) {
+    				Y[9*k + 3*P.column(r) + j] = P.sign(r) * M1.get(r, j);
+    				X[9*k + 3*j + r] = P.sign(r) * M2.get(j, P.column(r));
+    			}
+    		} else for(int i = 0; i < 3; i++) for(int j = 0; j < 3; j++) {
+    			Y[9*k + 3*i + j] = setC.entry(k, 0, i) * M1.get(0, j) + setC.entry(k, 1, i) * M1.get(1, j) + setC.entry(k, 2, i) * M1.get(2, j);
+    			X[9*k + 3*i + j] = M2.get(i, 0) * setC.entry(k, j, 0) + M2.get(i, 1) * setC.entry(k, j, 1) + M2.get(i, 2) * setC.entry(k, j, 2);
+    		}
+    		
+    		// m1 . (C m1') and m2 . (C m2')
+    		final double dot1 = B1.m1().x() * (setC.entry(k, 0, 0) * B2.m1().x() + setC.entry(k, 0, 1) * B2.m1().y() + setC.entry(k, 0, 2) * B2.m1().z())
+    				+ B1.m1().y() * (setC.entry(k, 1, 0) * B2.m1().x() + setC.entry(k, 1, 1) * B2.m1().y() + setC.entry(k, 1, 2) * B2.m1().z())
+    				+ B1.m1().z() * (setC.entry(k, 2, 0) * B2.m1().x() + setC.entry(k, 2, 1) * B2.m1().y() + setC.entry(k, 2, 2) * B2.m1().z());
+    		final double dot2 = B1.m2().x() * (setC.entry(k, 0, 0) * B2.m2().x() + setC.entry(k, 0, 1) * B2.m2().y() + setC.entry(k, 0, 2) * B2.m2().z())
+    				+ B1.m2().y() * (setC.entry(k, 1, 0) * B2.m2().x() + setC.entry(k, 1, 1) * B2.m2().y() + setC.entry(k, 1, 2) * B2.m2().z())
+    				+ B1.m2().z() * (setC.entry(k, 2, 0) * B2.m2().x() + setC.entry(k, 2, 1) * B2.m2().y() + setC.entry(k, 2, 2) * B2.m2().z());
+    		
+    		final double theta1 = SaferMath.acos(dot1);
+    		final double theta2 = SaferMath.acos(dot2);
+    		theta1Sq[k] = theta1 * theta1;
+    		theta2Sq[k] = theta2 * theta2;
+    		
+    		final double theta1Minus = SaferMath.acos(-dot1);
+    		final double theta2Minus = SaferMath.acos(-dot2);
+    		theta1SqMinus[k] = theta1Minus * theta1Minus;
+    		theta2SqMinus[k] = theta2Minus * theta2Minus;
+    	}
+    	
+    	double minDist = cap;
+    	
+    	for(int b = 0; b < n; b++) for(int c = 0; c < n; c++) {
+    		
+    		double planes = theta1Sq[b] + theta2Sq[c];
+    		if(min) planes = Math.min(planes, theta1SqMinus[b] + theta2SqMinus[c]);
+    		planes *= 0.5d;
+    		
+    		// the misorientation term is non-negative
+    		if(planes >= minDist) continue;
+    		
+    		double tr = 0d;
+    		for(int e = 0; e < 9; e++) tr += X[9*c + e] * Y[9*b + e];
+    		
+    		final double omega = SaferMath.acos(0.5d * (tr - 1d));
+    		final double dist = omega*omega + planes;
+    		
+    		if(dist < minDist) {
+    			minDist = dist;
+    			if(firstBelowCap) return minDist;
+    		}
+    	}
+    	
+    	return minDist;
+    }
+    
+    
+    // goes over all transpositions, inversions and symmetry products of both boundaries; kept for cross-checking
+    public final double distanceExhaustive(InterfaceMatrix other, PointGroup ptGrp, boolean interchange, boolean min) {
+    	
     	double minDist = INFTY;
     	
-    	Matrix3x3[] setC = Transformations.getSymmetryTransformations(ptGrp);
+    	final List<Matrix3x3> setC = Transformations.getSymmetryTable(ptGrp).matrices();
     	
     	boolean[] minus = null;
     	boolean[] transpose = null;
@@ -150,9 +318,16 @@ public class InterfaceMatrix {
     
     public final double distanceMisorSpace(InterfaceMatrix other, PointGroup ptGrp, boolean interchange) {
     	
+    	return MisorientationDistance.of(ptGrp).distance(this, other, interchange);
+    }
+    
+    
+    // the same with matrix products over all C1 x C2 x C3; kept for cross-checking
+    public final double distanceMisorSpaceExhaustive(InterfaceMatrix other, PointGroup ptGrp, boolean interchange) {
+    	
     	double minDist = INFTY;
     	
-    	Matrix3x3[] setC = Transformations.getSymmetryTransformations(ptGrp);
+    	final List<Matrix3x3> setC = Transformations.getSymmetryTable(ptGrp).matrices();
     	
 
     	boolean[] transpose = null;
@@ -192,9 +367,16 @@ public class InterfaceMatrix {
     
     public final double distancePlaneSpace(InterfaceMatrix other, PointGroup ptGrp, boolean interchange, boolean min) {
     	
+    	return BoundaryOrbit.of(this, ptGrp).planeDistance(BoundaryOrbit.of(other, ptGrp), interchange, min);
+    }
+    
+    
+    // the same over all C1 x C2 x C3, transpositions and inversions; kept for cross-checking
+    public final double distancePlaneSpaceExhaustive(InterfaceMatrix other, PointGroup ptGrp, boolean interchange, boolean min) {
+    	
     	double minDist = INFTY;
     	
-    	Matrix3x3[] setC = Transformations.getSymmetryTransformations(ptGrp);
+    	final List<Matrix3x3> setC = Transformations.getSymmetryTable(ptGrp).matrices();
     	
     	boolean[] minus = null;
     	boolean[] transpose = null;
@@ -262,7 +444,7 @@ public class InterfaceMatrix {
     		M2list = new Matrix3x3[]{M2T};	
     	}
     	
-    	Matrix3x3[] setC = Transformations.getSymmetryTransformations(ptGrp);
+    	final List<Matrix3x3> setC = Transformations.getSymmetryTable(ptGrp).matrices();
     	  
     	for(Matrix3x3 mat1 : M1list) for(Matrix3x3 mat2 : M2list)
     	   	for(Matrix3x3 C1: setC) for(Matrix3x3 C2 : setC) 
@@ -286,7 +468,7 @@ public class InterfaceMatrix {
 
  public final InterfaceMatrix getRepresWithDisor(PointGroup pointGrp, boolean sst) {
     	
-    	final Matrix3x3[] setC = Transformations.getSymmetryTransformations(pointGrp);
+    	final List<Matrix3x3> setC = Transformations.getSymmetryTable(pointGrp).matrices();
     	final double sqrt2_minOne = Math.sqrt(2d) - 1d;
 		final double[] sign = new double[]{-1d, 1d};
 		
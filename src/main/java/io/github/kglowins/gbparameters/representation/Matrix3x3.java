@@ -2,6 +2,7 @@ package io.github.kglowins.gbparameters.representation;
 
 import io.github.kglowins.gbparameters.enums.PointGroup;
 import io.github.kglowins.gbparameters.utils.SaferMath;
+import io.github.kglowins.gbparameters.utils.SymmetryTable;
 import io.github.kglowins.gbparameters.utils.Transformations;
 
 import java.text.DecimalFormat;
@@ -9,6 +10,9 @@ import java.text.DecimalFormat;
 
 public class Matrix3x3 {
 
+	// margin of the quaternion pre-check in getDisorientation
+	private static final double SLACK = 1e-9d;
+
 	private double e00;
 	private double e01;
 	private double e02;
@@ -572,139 +576,114 @@ public class Matrix3x3 {
     	
     }
     
+    /*
+     * The equivalent C1 M C2^T (or C1 M^T C2^T) in the asymmetric domain. The equivalents are swept as
+     * quaternions, c1 q c2* (or c1 q* c2*), whose Rodrigues vector is just the vector part over q0. Those within
+     * SLACK of the domain are multiplied out as matrices and tested as before, so that misorientations on its
+     * boundary (e.g. of CSL boundaries), where rounding decides, get the same representative.
+     */
     public final Matrix3x3 getDisorientation(PointGroup pointGrp) {
     	
-    	final Matrix3x3[] setC = Transformations.getSymmetryTransformations(pointGrp);
-    	final double sqrt2_minOne = Math.sqrt(2d) - 1d;
-		final double[] sign = new double[]{-1d, 1d};
+    	final SymmetryTable setC = Transformations.getSymmetryTable(pointGrp);
+    	
+    	// q, q*, the equivalent, then c1 and c2 read from the table
+    	final double[] q = new double[20];
+    	Quaternion.components(this, q, 0);
+    	q[4] = q[0];
+    	q[5] = -q[1];
+    	q[6] = -q[2];
+    	q[7] = -q[3];
 		
 		boolean[] TF = new boolean[]{false, true}; 
 		
-    	for(boolean transpose : TF) for(Matrix3x3 C1 : setC) for(Matrix3x3 C2 : setC)  {
+    	for(boolean transpose : TF) for(int c1 = 0; c1 < setC.size(); c1++) for(int c2 = 0; c2 < setC.size(); c2++)  {
+    		
+    		for(int i = 0; i < 4; i++) {
+    			q[12 + i] = setC.quaternion(c1, i);
+    			q[16 + i] = setC.quaternion(c2, i);
+    		}
+    		Quaternion.mul(q, 12, q, transpose ? 4 : 0, q, 8);
+    		Quaternion.mulConjugate(q, 8, q, 16, q, 8);
+    		
+    		// 1 + tr = 4 q0^2; half turns have no finite Rodrigues vector
+    		if(4d * q[8] * q[8] < 1e-4d - SLACK) continue;
+    		
+    		if(!isInAsymmetricDomain(pointGrp, q[9] / q[8], q[10] / q[8], q[11] / q[8], SLACK)) continue;
     		
     		final Matrix3x3 copyM = new Matrix3x3(this);
     		if(transpose) copyM.transpose();
-    		copyM.leftMul(C1);
-    		copyM.timesTransposed(C2);
+    		copyM.leftMul(setC.matrix(c1));
+    		copyM.timesTransposed(setC.matrix(c2));
     		
     		final RodriguesParams rodr = new RodriguesParams();
     		rodr.set(copyM);
+    		if(isInAsymmetricDomain(pointGrp, rodr.r1(), rodr.r2(), rodr.r3(), 0d)) {
+    			return copyM;
+    		}
+    	}
+    	
+    	System.err.println("Could not find a representation in asymetric domain.");
+    	return this;
+    }
+    
+    
+    // whether the Rodrigues vector is in the asymmetric domain, with every condition relaxed by tol
+    private static boolean isInAsymmetricDomain(PointGroup pointGrp, double r1, double r2, double r3, double tol) {
     	
+    	final double sqrt2_minOne = Math.sqrt(2d) - 1d + tol;
+    	final double one = 1d + tol;
+		final double[] sign = new double[]{-1d, 1d};
+		
+    	switch(pointGrp) {
+    	case M3M:
+    		if(r1 < r2 - tol || r2 < r3 - tol || r3 < -tol) return false;
     		
-    		switch(pointGrp) {
-    		case M3M:
-    			boolean asym = true;
-    			
-    			if(rodr.r1() < rodr.r2() || rodr.r2() < rodr.r3() || rodr.r3() < 0d) asym = false;
+    		if(Math.abs(r1) > sqrt2_minOne || Math.abs(r2) > sqrt2_minOne || Math.abs(r3) > sqrt2_minOne) return false;
     		
-    			if(asym) if( Math.abs(rodr.r1()) > sqrt2_minOne ||
-    				Math.abs(rodr.r2()) > sqrt2_minOne || 
-    				Math.abs(rodr.r3()) > sqrt2_minOne ) {
-    				asym = false;
-    				break;
-    			}
-    			
-    			if(asym) {
-    				for(double s1 : sign) {
-    					for(double s2 : sign) {
-    						for(double s3 : sign) {
-    							if(1d < s1*rodr.r1() + s2*rodr.r2() + s3*rodr.r3()) {
-    								asym = false;
-    								break;
-    							}
-    						}    			
-    						if(!asym) break;
-    					}
-    					if(!asym) break;    				    					
-    				}
-    			}
-    			
-    			if(asym) {    		    				
-    				return copyM;
-    			}
-    			break;
-    			
-    		case _6MMM:
-    			asym = true;
-    			
-    			   			
-    			final double a = 0.5d;
-    			final double b = Math.sqrt(3d) * 0.5d;
-    			final double oneDivSqrt3 = 1d / Math.sqrt(3d);
-    			
-    			if(0d > rodr.r2() || rodr.r2() > oneDivSqrt3*rodr.r1() || 0d > rodr.r3()) asym = false;
-    			
-    			if(asym) if(1d < Math.abs(rodr.r1()) || 1d < Math.abs(rodr.r2()) || 1d < Math.abs(rodr.r3())) {
-    				asym = false;
-    			}
-    			   		    			
-    			if(asym) {    				
-    				for(double s : sign) {						
-   						if( 1d < Math.abs(a + s*b*rodr.r3() ) ||
-    						1d < Math.abs(a*rodr.r1() + s*b*rodr.r2() ) ||
-    						1d < Math.abs(b*rodr.r1() + s*a*rodr.r2() ) ||
-    						1d < Math.abs(b + s*a*rodr.r3()) ) {
-    							
-   							asym = false;
-   							break;
-   						}    						
-    				}
-    			}
-    			if(asym) {
-    				return copyM;
-    			} 	
-    			break;
-    			
-    		case _4MMM:
-    			asym = true;
-    			
-    			final double sqrt2 = Math.sqrt(2d);
-    			
-    			if(rodr.r1() < rodr.r2() || rodr.r2() < 0d || rodr.r3() < 0d) asym = false;
-        		
-    			if(asym) if(1d < Math.abs(rodr.r1()) || 1d < Math.abs(rodr.r2()) || 1d < Math.abs(rodr.r3())) {
-    				asym = false;
-    			}
-    			
-    			if(asym) if( Math.abs(rodr.r3()) > sqrt2_minOne ) asym = false;
-    			
-    			    			
-    			if(asym) {
-    				for(double s1 : sign) {
-    					for(double s2 : sign) {
-    						
-    							if(sqrt2 < s1*rodr.r1() + s2*rodr.r2()) {
-    								asym = false;
-    								break;
-    							}    						
-    					}
-    					if(!asym) break;    				    					
-    				}
-    			}
-    			if(asym) {
-    				return copyM;
-    			} 	
-    			break;
-    			
-    		case MMM:
-    			asym = true;
-    			
-    			if(1d < Math.abs(rodr.r1()) || 1d < Math.abs(rodr.r2()) || 1d < Math.abs(rodr.r3())) {
-    				asym = false;
+    		for(double s1 : sign) for(double s2 : sign) for(double s3 : sign) {
+    			if(one < s1*r1 + s2*r2 + s3*r3) return false;
+    		}
+    		return true;
+    		
+    	case _6MMM:
+    		final double a = 0.5d;
+    		final double b = Math.sqrt(3d) * 0.5d;
+    		final double oneDivSqrt3 = 1d / Math.sqrt(3d);
+    		
+    		if(-tol > r2 || r2 > oneDivSqrt3*r1 + tol || -tol > r3) return false;
+    		
+    		if(one < Math.abs(r1) || one < Math.abs(r2) || one < Math.abs(r3)) return false;
+    		
+    		for(double s : sign) {
+    			if( one < Math.abs(a + s*b*r3) ||
+    				one < Math.abs(a*r1 + s*b*r2) ||
+    				one < Math.abs(b*r1 + s*a*r2) ||
+    				one < Math.abs(b + s*a*r3) ) {
+    				return false;
     			}
-    			
-    			if(asym) {
-    				return copyM;
-    			} 	
-    			break;
-    			
-    			default:
-    				break;
     		}
+    		return true;
+    		
+    	case _4MMM:
+    		final double sqrt2 = Math.sqrt(2d) + tol;
+    		
+    		if(r1 < r2 - tol || r2 < -tol || r3 < -tol) return false;
+    		
+    		if(one < Math.abs(r1) || one < Math.abs(r2) || one < Math.abs(r3)) return false;
+    		
+    		if(Math.abs(r3) > sqrt2_minOne) return false;
+    		
+    		for(double s1 : sign) for(double s2 : sign) {
+    			if(sqrt2 < s1*r1 + s2*r2) return false;
+    		}
+    		return true;
+    		
+    	case MMM:
+    		return !(one < Math.abs(r1) || one < Math.abs(r2) || one < Math.abs(r3));
+    		
+    	default:
+    		return false;
     	}
-    	
-    	System.err.println("Could not find a representation in asymetric domain.");
-    	return this;
     }
     
     
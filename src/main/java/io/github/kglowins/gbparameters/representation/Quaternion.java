@@ -110,6 +110,52 @@ public class Quaternion {
     }
 
     
+    /*
+     * Components (q0, q1, q2, q3) of the unit quaternion of the rotation M, written to q at the offset. Unlike
+     * set(Matrix3x3), it stays accurate for rotations by angles close to 180 degrees, as it picks the largest of
+     * q0, |q1|, |q2| and |q3| to divide by.
+     */
+    public static void components(Matrix3x3 M, double[] q, int offset) {
+    	
+    	final double tr = M.tr();
+    	double q0, q1, q2, q3;
+    	
+    	if(tr > M.e00() && tr > M.e11() && tr > M.e22()) {
+    		final double S = 2d * Math.sqrt(1d + tr);
+    		q0 = 0.25d * S;
+    		q1 = (M.e21() - M.e12()) / S;
+    		q2 = (M.e02() - M.e20()) / S;
+    		q3 = (M.e10() - M.e01()) / S;
+    		
+    	} else if(M.e00() >= M.e11() && M.e00() >= M.e22()) {
+    		final double S = 2d * Math.sqrt(1d + M.e00() - M.e11() - M.e22());
+    		q0 = (M.e21() - M.e12()) / S;
+    		q1 = 0.25d * S;
+    		q2 = (M.e01() + M.e10()) / S;
+    		q3 = (M.e02() + M.e20()) / S;
+    		
+    	} else if(M.e11() >= M.e22()) {
+    		final double S = 2d * Math.sqrt(1d + M.e11() - M.e00() - M.e22());
+    		q0 = (M.e02() - M.e20()) / S;
+    		q1 = (M.e01() + M.e10()) / S;
+    		q2 = 0.25d * S;
+    		q3 = (M.e12() + M.e21()) / S;
+    		
+    	} else {
+    		final double S = 2d * Math.sqrt(1d + M.e22() - M.e00() - M.e11());
+    		q0 = (M.e10() - M.e01()) / S;
+    		q1 = (M.e02() + M.e20()) / S;
+    		q2 = (M.e12() + M.e21()) / S;
+    		q3 = 0.25d * S;
+    	}
+    	
+    	q[offset] = q0;
+    	q[offset + 1] = q1;
+    	q[offset + 2] = q2;
+    	q[offset + 3] = q3;
+    }
+    
+    
     public final void set(EulerAngles eul) {
     	
     	final double halfPhi = 0.5 * eul.Phi();
@@ -165,6 +211,59 @@ public class Quaternion {
     	
     }
     
+    
+    /*
+     * Flat-array counterparts of mul and conj, for symmetry sweeps that keep misorientations as quaternions: the
+     * equivalent C1 M C2^T of a misorientation M is c1 q c2*, and its transposition is q*. The results are
+     * written to out at offset oo, which may overlap the arguments.
+     */
+    
+    // a b
+    public static void mul(double[] a, int oa, double[] b, int ob, double[] out, int oo) {
+    	
+    	final double a0 = a[oa], a1 = a[oa + 1], a2 = a[oa + 2], a3 = a[oa + 3];
+    	final double b0 = b[ob], b1 = b[ob + 1], b2 = b[ob + 2], b3 = b[ob + 3];
+    	out[oo] = a0 * b0 - a1 * b1 - a2 * b2 - a3 * b3;
+    	out[oo + 1] = a0 * b1 + b0 * a1 + a2 * b3 - a3 * b2;
+    	out[oo + 2] = a0 * b2 + b0 * a2 + a3 * b1 - a1 * b3;
+    	out[oo + 3] = a0 * b3 + b0 * a3 + a1 * b2 - a2 * b1;
+    }
+    
+    
+    // a b*
+    public static void mulConjugate(double[] a, int oa, double[] b, int ob, double[] out, int oo) {
+    	
+    	final double a0 = a[oa], a1 = a[oa + 1], a2 = a[oa + 2], a3 = a[oa + 3];
+    	final double b0 = b[ob], b1 = -b[ob + 1], b2 = -b[ob + 2], b3 = -b[ob + 3];
+    	out[oo] = a0 * b0 - a1 * b1 - a2 * b2 - a3 * b3;
+    	out[oo + 1] = a0 * b1 + b0 * a1 + a2 * b3 - a3 * b2;
+    	out[oo + 2] = a0 * b2 + b0 * a2 + a3 * b1 - a1 * b3;
+    	out[oo + 3] = a0 * b3 + b0 * a3 + a1 * b2 - a2 * b1;
+    }
+    
+    
+    /*
+     * The rotation angle in [0, pi] and the axis of the quaternion at the offset, as AxisAngle.set(Matrix3x3)
+     * gives them for its matrix: of q and -q the one with q0 >= 0 is taken, and the angle 2 atan2(|v|, q0) of
+     * the vector part v needs neither an arc cosine nor a normalization of the matrix. The identity gets the
+     * z axis, as in AxisAngle.set(Quaternion).
+     */
+    public static void axisAngle(double[] q, int offset, AxisAngle aa) {
+    	
+    	final double sign = q[offset] < 0d ? -1d : 1d;
+    	final double x = sign * q[offset + 1], y = sign * q[offset + 2], z = sign * q[offset + 3];
+    	final double norm = Math.sqrt(x*x + y*y + z*z);
+    	
+    	final UnitVector n = new UnitVector();
+    	if(norm < 1e-12d) {
+    		aa.set(n, 0d);
+    	} else {
+    		n.set(x / norm, y / norm, z / norm);
+    		aa.set(n, 2d * Math.atan2(norm, sign * q[offset]));
+    	}
+    }
+    
+    
     @Override
     public String toString() {
     	return "{" + q0 + ", " + q1 + ", " + q2 + ", " + q3 + "}";
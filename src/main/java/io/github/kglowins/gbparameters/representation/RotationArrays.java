@@ -0,0 +1,679 @@
+package io.github.kglowins.gbparameters.representation;
+
+import io.github.kglowins.gbparameters.enums.RotationFormat;
+import io.github.kglowins.gbparameters.utils.SaferMath;
+import org.apache.commons.math3.util.FastMath;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static io.github.kglowins.gbparameters.enums.RotationFormat.AXIS_ANGLE;
+import static io.github.kglowins.gbparameters.enums.RotationFormat.EULER_ANGLES;
+import static io.github.kglowins.gbparameters.enums.RotationFormat.ISOCHORIC;
+import static io.github.kglowins.gbparameters.enums.RotationFormat.MATRIX;
+import static io.github.kglowins.gbparameters.enums.RotationFormat.QUATERNION;
+import static io.github.kglowins.gbparameters.enums.RotationFormat.RODRIGUES;
+
+/*
+ * Conversions of many rotations at once between flat double[] buffers in the layouts of RotationFormat, without
+ * an object per rotation. Every rotation comes out as if it were set into an object of its source class, which
+ * normalizes Euler angles, quaternions and axis-angle pairs, and converted with the set(...) methods of the
+ * target class, through the same intermediate representations where those methods take them (e.g. Euler angles
+ * to Rodrigues parameters through the matrix) and with the same arithmetic, so the results are identical.
+ * Conversions that have no such method go through the axis-angle pair, and the homochoric parameters are
+ * inverted by Newton's method. Half-turns given by Rodrigues parameters, zero quaternions and zero axes throw
+ * an IllegalArgumentException as the objects do.
+ */
+public final class RotationArrays {
+
+	private static final double TWO_PI = 2d * Math.PI;
+
+	private static final double _3div4PISQUARE = 3d / 4d / Math.PI / Math.PI;
+	private static final double _1div3 = 1d / 3d;
+
+	// rows converted by one task of the parallel variants
+	private static final int CHUNK = 4096;
+
+	private static final int NEWTON_ITERATIONS = 50;
+
+	// below it, w - sin w is inverted by its series instead, as it loses all digits in floating point
+	private static final double SMALL_ANGLE = 1e-3d;
+
+	private RotationArrays() {
+	}
+
+	public static double[] convert(RotationFormat from, double[] src, RotationFormat to) {
+		int count = rows(from, src);
+		double[] dst = new double[count * to.getSize()];
+		convert(from, src, 0, to, dst, 0, count);
+		return dst;
+	}
+
+	// count rotations from src[srcOffset] on, written to dst from dstOffset on; the ranges must not overlap
+	public static void convert(RotationFormat from, double[] src, int srcOffset, RotationFormat to, double[] dst,
+							   int dstOffset, int count) {
+		checkBounds(from, src, srcOffset, to, dst, dstOffset, count);
+		new Rows(from, to).convert(src, srcOffset, dst, dstOffset, 0, count);
+	}
+
+	// the same, converting chunks of rows in the pool
+	public static double[] convertParallel(RotationFormat from, double[] src, RotationFormat to, ForkJoinPool pool) {
+		int count = rows(from, src);
+		double[] dst = new double[count * to.getSize()];
+		convertParallel(from, src, 0, to, dst, 0, count, pool);
+		return dst;
+	}
+
+	public static void convertParallel(RotationFormat from, double[] src, int srcOffset, RotationFormat to,
+									   double[] dst, int dstOffset, int count, ForkJoinPool pool) {
+		checkBounds(from, src, srcOffset, to, dst, dstOffset, count);
+		int chunks = (count + CHUNK - 1) / CHUNK;
+		pool.submit(() -> IntStream.range(0, chunks).parallel()
+			.forEach(c -> new Rows(from, to).convert(src, srcOffset, dst, dstOffset, c * CHUNK,
+				Math.min(count, (c + 1) * CHUNK)))).join();
+	}
+
+	private static int rows(RotationFormat format, double[] buffer) {
+		if (buffer.length % format.getSize() != 0) {
+			throw new IllegalArgumentException("Length " + buffer.length + " is not a multiple of "
+				+ format.getSize() + " for " + format);
+		}
+		return buffer.length / format.getSize();
+	}
+
+	private static void checkBounds(RotationFormat from, double[] src, int srcOffset, RotationFormat to,
+									double[] dst, int dstOffset, int count) {
+		if (count < 0 || srcOffset < 0 || dstOffset < 0
+			|| srcOffset + (long) count * from.getSize() > src.length
+			|| dstOffset + (long) count * to.getSize() > dst.length) {
+			throw new IndexOutOfBoundsException(count + " rotations from " + srcOffset + " of " + src.length
+				+ " to " + dstOffset + " of " + dst.length);
+		}
+	}
+
+	/*
+	 * The representations a conversion passes through, in the order of the object methods: for example
+	 * AxisAngle.set(EulerAngles) goes through a Quaternion and EulerAngles.set(RodriguesParams) through a matrix.
+	 */
+	private static RotationFormat[] path(RotationFormat from, RotationFormat to) {
+		if (from == to) {
+			return new RotationFormat[] {from};
+		}
+		switch (from) {
+			case EULER_ANGLES:
+				if (to == RODRIGUES) {
+					return new RotationFormat[] {from, MATRIX, to};
+				} else if (to == AXIS_ANGLE) {
+					return new RotationFormat[] {from, QUATERNION, to};
+				} else if (to == ISOCHORIC) {
+					return new RotationFormat[] {from, QUATERNION, AXIS_ANGLE, to};
+				}
+				break;
+			case QUATERNION:
+			case MATRIX:
+				if (to == ISOCHORIC) {
+					return new RotationFormat[] {from, AXIS_ANGLE, to};
+				}
+				break;
+			case RODRIGUES:
+				if (to == EULER_ANGLES) {
+					return new RotationFormat[] {from, MATRIX, to};
+				} else if (to == QUATERNION || to == ISOCHORIC) {
+					return new RotationFormat[] {from, AXIS_ANGLE, to};
+				}
+				break;
+			case AXIS_ANGLE:
+				if (to == EULER_ANGLES) {
+					return new RotationFormat[] {from, MATRIX, to};
+				}
+				break;
+			case ISOCHORIC:
+				if (to == EULER_ANGLES) {
+					return new RotationFormat[] {from, AXIS_ANGLE, MATRIX, to};
+				} else if (to != AXIS_ANGLE) {
+					return new RotationFormat[] {from, AXIS_ANGLE, to};
+				}
+				break;
+		}
+		return new RotationFormat[] {from, to};
+	}
+
+	private static final class Rows {
+
+		private final RotationFormat from;
+		private final RotationFormat[] path;
+
+		// intermediate rotations, and room for the steps that pass through other representations themselves
+		private final double[] x = new double[9];
+		private final double[] y = new double[9];
+		private final double[] tmp = new double[8];
+
+		Rows(RotationFormat from, RotationFormat to) {
+			this.from = from;
+			path = path(from, to);
+		}
+
+		// rows first, ..., last - 1 counted from the offsets
+		void convert(double[] src, int srcOffset, double[] dst, int dstOffset, int first, int last) {
+			int srcSize = from.getSize();
+			int dstSize = path[path.length - 1].getSize();
+			for (int r = first; r < last; r++) {
+				convert(src, srcOffset + r * srcSize, dst, dstOffset + r * dstSize);
+			}
+		}
+
+		private void convert(double[] src, int i, double[] dst, int j) {
+			double[] s = src;
+			int si = i;
+			if (from == EULER_ANGLES || from == QUATERNION || from == AXIS_ANGLE) {
+				// the source as held by its object
+				boolean last = path.length == 1;
+				normalize(from, src, i, last ? dst : x, last ? j : 0);
+				s = x;
+				si = 0;
+			} else if (path.length == 1) {
+				System.arraycopy(src, i, dst, j, from.getSize());
+			}
+			for (int k = 1; k < path.length; k++) {
+				boolean last = k == path.length - 1;
+				double[] d = last ? dst : s == x ? y : x;
+				int dj = last ? j : 0;
+				step(path[k - 1], path[k], s, si, d, dj, tmp);
+				s = d;
+				si = dj;
+			}
+		}
+	}
+
+	// as set(double, ...) of EulerAngles and Quaternion, and UnitVector.set(x, y, z) with AxisAngle.set(axis, angle)
+	private static void normalize(RotationFormat format, double[] s, int i, double[] d, int j) {
+		switch (format) {
+			case EULER_ANGLES:
+				setEuler(s[i], s[i + 1], s[i + 2], d, j);
+				break;
+			case QUATERNION:
+				setQuaternion(s[i], s[i + 1], s[i + 2], s[i + 3], d, j);
+				break;
+			case AXIS_ANGLE:
+				setAxisAngle(s[i], s[i + 1], s[i + 2], s[i + 3], d, j);
+				break;
+			default:
+				System.arraycopy(s, i, d, j, format.getSize());
+		}
+	}
+
+	// a conversion that an object method makes directly
+	private static void step(RotationFormat from, RotationFormat to, double[] s, int i, double[] d, int j,
+							 double[] tmp) {
+		switch (from) {
+			case EULER_ANGLES:
+				if (to == MATRIX) {
+					eulerToMatrix(s, i, d, j);
+					return;
+				} else if (to == QUATERNION) {
+					eulerToQuaternion(s, i, d, j);
+					return;
+				}
+				break;
+			case QUATERNION:
+				if (to == MATRIX) {
+					quaternionToMatrix(s, i, d, j);
+					return;
+				} else if (to == EULER_ANGLES) {
+					quaternionToEuler(s, i, d, j);
+					return;
+				} else if (to == RODRIGUES) {
+					quaternionToRodrigues(s, i, d, j);
+					return;
+				} else if (to == AXIS_ANGLE) {
+					quaternionToAxisAngle(s, i, d, j);
+					return;
+				}
+				break;
+			case MATRIX:
+				if (to == EULER_ANGLES) {
+					matrixToEuler(s, i, d, j);
+					return;
+				} else if (to == QUATERNION) {
+					matrixToQuaternion(s, i, d, j, tmp);
+					return;
+				} else if (to == RODRIGUES) {
+					matrixToRodrigues(s, i, d, j);
+					return;
+				} else if (to == AXIS_ANGLE) {
+					matrixToAxisAngle(s, i, d, j, tmp);
+					return;
+				}
+				break;
+			case RODRIGUES:
+				if (to == MATRIX) {
+					rodriguesToMatrix(s, i, d, j);
+					return;
+				} else if (to == AXIS_ANGLE) {
+					rodriguesToAxisAngle(s, i, d, j);
+					return;
+				}
+				break;
+			case AXIS_ANGLE:
+				if (to == MATRIX) {
+					axisAngleToMatrix(s, i, d, j);
+					return;
+				} else if (to == QUATERNION) {
+					axisAngleToQuaternion(s, i, d, j);
+					return;
+				} else if (to == RODRIGUES) {
+					axisAngleToRodrigues(s, i, d, j);
+					return;
+				} else if (to == ISOCHORIC) {
+					axisAngleToIsochoric(s, i, d, j);
+					return;
+				}
+				break;
+			case ISOCHORIC:
+				if (to == AXIS_ANGLE) {
+					isochoricToAxisAngle(s, i, d, j);
+					return;
+				}
+				break;
+		}
+		throw new IllegalStateException("No direct conversion from " + from + " to " + to);
+	}
+
+	// EulerAngles.set(double, double, double)
+	private static void setEuler(double phi1, double Phi, double phi2, double[] d, int j) {
+		if(Math.abs(phi1) >= TWO_PI) phi1 = Math.IEEEremainder(phi1, TWO_PI);
+		if(phi1 < 0d) phi1 += TWO_PI;
+
+		if(Math.abs(phi2) >= TWO_PI) phi2 = Math.IEEEremainder(phi2, TWO_PI);
+		if(phi2 < 0d) phi2 += TWO_PI;
+
+		if(Math.abs(Phi) > TWO_PI) Phi = Math.IEEEremainder(Phi, TWO_PI);
+		if(Phi < 0d) Phi += TWO_PI;
+
+		if(Phi > Math.PI) {
+			Phi = TWO_PI - Phi;
+
+			phi1 -= Math.PI;
+			if(phi1 < 0d) phi1 += TWO_PI;
+
+			phi2 -= Math.PI;
+			if(phi2 < 0d) phi2 += TWO_PI;
+		}
+		d[j] = phi1;
+		d[j + 1] = Phi;
+		d[j + 2] = phi2;
+	}
+
+	// Quaternion.set(double, double, double, double)
+	private static void setQuaternion(double q0, double q1, double q2, double q3, double[] d, int j) {
+		final double normSq = q0*q0 + q1*q1 + q2*q2 + q3*q3;
+		if(Math.abs(normSq) < 1e-6d) {
+			throw new IllegalArgumentException("Rotation cannot be represented by a zero quaternion");
+		}
+		final double norm = Math.sqrt(normSq);
+		if(Math.abs(norm - 1d) > 1e-5d) {
+			q0 /= norm;
+			q1 /= norm;
+			q2 /= norm;
+			q3 /= norm;
+		}
+		d[j] = q0;
+		d[j + 1] = q1;
+		d[j + 2] = q2;
+		d[j + 3] = q3;
+	}
+
+	// UnitVector.set(double, double, double)
+	private static void setAxis(double x, double y, double z, double[] d, int j) {
+		final double normSq = x*x + y*y + z*z;
+		if(Math.abs(normSq) < 1e-5d) {
+			throw new IllegalArgumentException("A unit direction cannot be represented by a zero vector.");
+		}
+		final double norm = Math.sqrt(normSq);
+		if(Math.abs(norm - 1d) > 1e-5d) {
+			x /= norm;
+			y /= norm;
+			z /= norm;
+		}
+		d[j] = x;
+		d[j + 1] = y;
+		d[j + 2] = z;
+	}
+
+	// UnitVector.set(x, y, z) followed by AxisAngle.set(UnitVector, double)
+	private static void setAxisAngle(double x, double y, double z, double angle, double[] d, int j) {
+		setAxis(x, y, z, d, j);
+		double w = angle;
+		if(Math.abs(w) > TWO_PI) w = Math.IEEEremainder(w, TWO_PI);
+		if(w < 0d) w += TWO_PI;
+		if(w > Math.PI) {
+			w = TWO_PI - w;
+			d[j] = -d[j];
+			d[j + 1] = -d[j + 1];
+			d[j + 2] = -d[j + 2];
+		}
+		d[j + 3] = w;
+	}
+
+	private static void setHalfTurn(double[] d, int j) {
+		d[j] = d[j + 1] = d[j + 2] = Double.POSITIVE_INFINITY;
+	}
+
+	private static boolean isHalfTurn(double[] s, int i) {
+		return Double.isInfinite(s[i]) || Double.isInfinite(s[i + 1]) || Double.isInfinite(s[i + 2]);
+	}
+
+	// Matrix3x3.set(EulerAngles)
+	private static void eulerToMatrix(double[] s, int i, double[] d, int j) {
+		final double c1 = Math.cos(s[i]);
+		final double C = Math.cos(s[i + 1]);
+		final double c2 = Math.cos(s[i + 2]);
+
+		final double s1 = Math.sin(s[i]);
+		final double S = Math.sin(s[i + 1]);
+		final double s2 = Math.sin(s[i + 2]);
+
+		d[j] = c1*c2 - s1*s2*C;
+		d[j + 1] = s1*c2 + c1*s2*C;
+		d[j + 2] = s2*S;
+
+		d[j + 3] = -c1*s2 - s1*c2*C;
+		d[j + 4] = -s1*s2 + c1*c2*C;
+		d[j + 5] = c2*S;
+
+		d[j + 6] = s1*S;
+		d[j + 7] = -c1*S;
+		d[j + 8] = C;
+	}
+
+	// Quaternion.set(EulerAngles)
+	private static void eulerToQuaternion(double[] s, int i, double[] d, int j) {
+		final double halfPhi = 0.5 * s[i + 1];
+		final double C = Math.cos(halfPhi);
+		final double S = Math.sin(halfPhi);
+
+		final double avg = 0.5d * (s[i] + s[i + 2]);
+		final double diff = 0.5d * (s[i] - s[i + 2]);
+
+		setQuaternion(C * Math.cos(avg), -S * Math.cos(diff), -S * Math.sin(diff), -C * Math.sin(avg), d, j);
+	}
+
+	// Matrix3x3.set(Quaternion)
+	private static void quaternionToMatrix(double[] s, int i, double[] d, int j) {
+		final double q0 = s[i], q1 = s[i + 1], q2 = s[i + 2], q3 = s[i + 3];
+		final double q0sq = q0 * q0;
+		final double q1sq = q1 * q1;
+		final double q2sq = q2 * q2;
+		final double q3sq = q3 * q3;
+
+		final double q01 = q0 * q1;
+		final double q02 = q0 * q2;
+		final double q03 = q0 * q3;
+		final double q12 = q1 * q2;
+		final double q13 = q1 * q3;
+		final double q23 = q2 * q3;
+
+		d[j] = q0sq + q1sq - (q2sq + q3sq);
+		d[j + 1] = 2d * (q12 - q03);
+		d[j + 2] = 2d * (q13 + q02);
+
+		d[j + 3] = 2d * (q12 + q03);
+		d[j + 4] = q0sq + q2sq - (q1sq + q3sq);
+		d[j + 5] = 2d * (q23 - q01);
+
+		d[j + 6] = 2d * (q13 - q02);
+		d[j + 7] = 2d * (q23 + q01);
+		d[j + 8] = q0sq + q3sq - (q1sq + q2sq);
+	}
+
+	// EulerAngles.set(Quaternion)
+	private static void quaternionToEuler(double[] s, int i, double[] d, int j) {
+		final double q0 = s[i], q1 = s[i + 1], q2 = s[i + 2], q3 = s[i + 3];
+		final double Phi = SaferMath.acos(q0*q0 + q3*q3 - (q1*q1 + q2*q2));
+		double phi1, phi2;
+
+		if(Math.abs(Phi) < 1e-5d) {
+			phi1 = SaferMath.atan2(-2d * q0 * q3, q0*q0 - q3*q3);
+			phi2 = 0d;
+
+		} else if(Math.abs(Phi - Math.PI) < 1e-5d) {
+			phi1 = SaferMath.atan2(2d * q1 * q2, q1*q1 - q2*q2);
+			phi2 = 0d;
+
+		} else {
+			final double q01 = q0 * q1;
+			final double q23 = q2 * q3;
+			final double q02 = q0 * q2;
+			final double q13 = q1 * q3;
+
+			phi1 = SaferMath.atan2(-q02 + q13, -(q23 + q01));
+			phi2 = SaferMath.atan2(q13 + q02, q23 - q01);
+		}
+		d[j] = phi1;
+		d[j + 1] = Phi;
+		d[j + 2] = phi2;
+	}
+
+	// RodriguesParams.set(Quaternion)
+	private static void quaternionToRodrigues(double[] s, int i, double[] d, int j) {
+		final double q0 = s[i];
+		if(Math.abs(q0) < 1e-4d) {
+			setHalfTurn(d, j);
+		} else {
+			d[j] = s[i + 1] / q0;
+			d[j + 1] = s[i + 2] / q0;
+			d[j + 2] = s[i + 3] / q0;
+		}
+	}
+
+	// AxisAngle.set(Quaternion)
+	private static void quaternionToAxisAngle(double[] s, int i, double[] d, int j) {
+		final double q0 = s[i];
+		if(Math.abs(q0 - 1) < 1e-4d) {
+			setAxisAngle(0, 0, 1, 0, d, j);
+		} else {
+			final double S = SaferMath.sqrt(1 - q0 * q0);
+			setAxisAngle(s[i + 1] / S, s[i + 2] / S, s[i + 3] / S, 2 * SaferMath.acos(q0), d, j);
+		}
+	}
+
+	// EulerAngles.set(Matrix3x3)
+	private static void matrixToEuler(double[] s, int i, double[] d, int j) {
+		final double e22 = s[i + 8];
+		if(Math.abs(e22 - 1d) < 1e-5d || e22 > 1d) {
+			d[j] = SaferMath.atan2(s[i + 1], s[i]);
+			d[j + 1] = 0d;
+			d[j + 2] = 0d;
+
+		} else if(Math.abs(e22 + 1d) < 1e-5d || e22 < -1d) {
+			d[j] = SaferMath.atan2(s[i + 1], s[i]);
+			d[j + 1] = Math.PI;
+			d[j + 2] = 0d;
+
+		} else {
+			d[j] = SaferMath.atan2(s[i + 6], -s[i + 7]);
+			d[j + 1] = SaferMath.acos(e22);
+			d[j + 2] = SaferMath.atan2(s[i + 2], s[i + 5]);
+		}
+	}
+
+	// Quaternion.set(Matrix3x3), through Euler angles for half-turns
+	private static void matrixToQuaternion(double[] s, int i, double[] d, int j, double[] tmp) {
+		final double tr = s[i] + s[i + 4] + s[i + 8];
+		if(Math.abs(tr + 1d) < 1e-4d) {
+			matrixToEuler(s, i, tmp, 0);
+			eulerToQuaternion(tmp, 0, d, j);
+		} else {
+			final double C = SaferMath.sqrt(tr + 1d);
+			d[j] = 0.5d * C;
+			final double D = 0.5d / C;
+			d[j + 1] = D * (s[i + 7] - s[i + 5]);
+			d[j + 2] = D * (s[i + 2] - s[i + 6]);
+			d[j + 3] = D * (s[i + 3] - s[i + 1]);
+		}
+	}
+
+	// RodriguesParams.set(Matrix3x3)
+	private static void matrixToRodrigues(double[] s, int i, double[] d, int j) {
+		final double C = 1d + (s[i] + s[i + 4] + s[i + 8]);
+		if(Math.abs(C) < 1e-4d) {
+			setHalfTurn(d, j);
+		} else {
+			d[j] = (s[i + 7] - s[i + 5]) / C;
+			d[j + 1] = (s[i + 2] - s[i + 6]) / C;
+			d[j + 2] = (s[i + 3] - s[i + 1]) / C;
+		}
+	}
+
+	// AxisAngle.set(Matrix3x3), through Euler angles and a quaternion for symmetric matrices
+	private static void matrixToAxisAngle(double[] s, int i, double[] d, int j, double[] tmp) {
+		double x = s[i + 7] - s[i + 5];
+		double y = s[i + 2] - s[i + 6];
+		double z = s[i + 3] - s[i + 1];
+		// Matrix3x3.isSymmetric()
+		if(Math.abs(z) < 1e-4d && Math.abs(y) < 1e-4d && Math.abs(x) < 1e-4d) {
+			matrixToEuler(s, i, tmp, 0);
+			eulerToQuaternion(tmp, 0, tmp, 4);
+			quaternionToAxisAngle(tmp, 4, d, j);
+		} else {
+			final double norm = Math.sqrt(x*x + y*y + z*z);
+			x /= norm;
+			y /= norm;
+			z /= norm;
+			final double angle = SaferMath.acos(((s[i] + s[i + 4] + s[i + 8]) - 1) * 0.5);
+			setAxis(x, y, z, d, j);
+			d[j + 3] = angle;
+		}
+	}
+
+	// Matrix3x3.set(RodriguesParams)
+	private static void rodriguesToMatrix(double[] s, int i, double[] d, int j) {
+		if(isHalfTurn(s, i)) {
+			throw new IllegalArgumentException("A half-turn represented by Rodrigues parameters cannot be converted into a rotation matrix");
+		}
+		final double r1 = s[i], r2 = s[i + 1], r3 = s[i + 2];
+		final double r12 = r1 * r2;
+		final double r13 = r1 * r3;
+		final double r23 = r2 * r3;
+		final double r1sq = r1 * r1;
+		final double r2sq = r2 * r2;
+		final double r3sq = r3 * r3;
+
+		final double C = 1d + r1sq + r2sq + r3sq;
+
+		d[j] = (1d + r1sq - r2sq - r3sq) / C;
+		d[j + 1] = 2d * (r12 - r3) / C;
+		d[j + 2] = 2d * (r13 + r2) / C;
+
+		d[j + 3] = 2d * (r12 + r3) / C;
+		d[j + 4] = (1d - r1sq + r2sq - r3sq) / C;
+		d[j + 5] = 2d * (r23 - r1) / C;
+
+		d[j + 6] = 2d * (r13 - r2) / C;
+		d[j + 7] = 2d * (r23 + r1) / C;
+		d[j + 8] = (1d - r1sq - r2sq + r3sq) / C;
+	}
+
+	// AxisAngle.set(RodriguesParams)
+	private static void rodriguesToAxisAngle(double[] s, int i, double[] d, int j) {
+		if(isHalfTurn(s, i)) {
+			throw new IllegalArgumentException("Gibbs vector is infinite");
+		}
+		final double r1 = s[i], r2 = s[i + 1], r3 = s[i + 2];
+		final double rSq = Math.sqrt(r1*r1 + r2*r2 + r3*r3);
+		if(rSq > 1e-4d) {
+			setAxisAngle(r1 / rSq, r2 / rSq, r3 / rSq, 2 * SaferMath.atan(rSq), d, j);
+		} else {
+			setAxisAngle(0, 0, 1, 0, d, j);
+		}
+	}
+
+	// Matrix3x3.set(AxisAngle)
+	private static void axisAngleToMatrix(double[] s, int i, double[] d, int j) {
+		final double x = s[i], y = s[i + 1], z = s[i + 2];
+		final double c = Math.cos(s[i + 3]);
+		final double S = Math.sin(s[i + 3]);
+		final double oneMinC = 1d - c;
+
+		final double xyBra = x * y * oneMinC;
+		final double xzBra = x * z * oneMinC;
+		final double yzBra = y * z * oneMinC;
+
+		final double xS = x * S;
+		final double yS = y * S;
+		final double zS = z * S;
+
+		d[j] = c + x*x*oneMinC;
+		d[j + 1] = xyBra - zS;
+		d[j + 2] = xzBra + yS;
+
+		d[j + 3] = xyBra + zS;
+		d[j + 4] = c + y*y*oneMinC;
+		d[j + 5] = yzBra - xS;
+
+		d[j + 6] = xzBra - yS;
+		d[j + 7] = yzBra + xS;
+		d[j + 8] = c + z*z*oneMinC;
+	}
+
+	// Quaternion.set(AxisAngle)
+	private static void axisAngleToQuaternion(double[] s, int i, double[] d, int j) {
+		final double halfOmega = 0.5d * s[i + 3];
+		final double S = FastMath.sin(halfOmega);
+		setQuaternion(Math.cos(halfOmega), S * s[i], S * s[i + 1], S * s[i + 2], d, j);
+	}
+
+	// RodriguesParams.set(AxisAngle)
+	private static void axisAngleToRodrigues(double[] s, int i, double[] d, int j) {
+		final double angle = s[i + 3];
+		if(Math.abs(angle - Math.PI) < 1e-4d) {
+			setHalfTurn(d, j);
+		} else {
+			final double t = Math.tan(0.5d * angle);
+			d[j] = t * s[i];
+			d[j + 1] = t * s[i + 1];
+			d[j + 2] = t * s[i + 2];
+		}
+	}
+
+	// IsochoricParams.set(AxisAngle)
+	private static void axisAngleToIsochoric(double[] s, int i, double[] d, int j) {
+		final double angle = s[i + 3];
+		final double f = FastMath.pow(_3div4PISQUARE * (angle - FastMath.sin(angle)), _1div3);
+		d[j] = f * s[i];
+		d[j + 1] = f * s[i + 1];
+		d[j + 2] = f * s[i + 2];
+	}
+
+	/*
+	 * The inverse of IsochoricParams.set(AxisAngle): the angle solves w - sin w = |rho|^3 / _3div4PISQUARE on
+	 * [0, pi]. The left side is convex and increasing, so Newton's method started from (6 |rho|^3 /
+	 * _3div4PISQUARE)^(1/3), below the root as w - sin w <= w^3 / 6, lands above it after one step and then
+	 * decreases to it. The identity gets the z axis, as in AxisAngle.set(Quaternion).
+	 */
+	private static void isochoricToAxisAngle(double[] s, int i, double[] d, int j) {
+		final double rho1 = s[i], rho2 = s[i + 1], rho3 = s[i + 2];
+		final double norm = Math.sqrt(rho1*rho1 + rho2*rho2 + rho3*rho3);
+		if(norm < 1e-12d) {
+			setAxisAngle(0, 0, 1, 0, d, j);
+			return;
+		}
+		final double target = Math.min(norm * norm * norm / _3div4PISQUARE, Math.PI);
+		double w = Math.cbrt(6d * target);
+		if(w < SMALL_ANGLE) {
+			// w - sin w = w^3 / 6 (1 - w^2 / 20 + ...)
+			w *= 1d + w * w / 60d;
+		} else {
+			w = Math.min(w, Math.PI);
+			for(int k = 0; k < NEWTON_ITERATIONS; k++) {
+				final double sinHalf = Math.sin(0.5d * w);
+				final double step = (w - Math.sin(w) - target) / (2d * sinHalf * sinHalf);
+				w = Math.min(Math.max(w - step, 0d), Math.PI);
+				if(Math.abs(step) <= 1e-15d * w) {
+					break;
+				}
+			}
+		}
+		setAxisAngle(rho1 / norm, rho2 / norm, rho3 / norm, w, d, j);
+	}
+}
@@ -0,0 +1,97 @@
+package io.github.kglowins.gbparameters.representation;
+
+/*
+ * A rotation whose matrix has a single non-zero entry, 1 or -1, in every row, as have all the operators of
+ * m-3m, 4/mmm and mmm. Applying it only moves and negates entries, and gives the same values as the dense
+ * products of Matrix3x3 and UnitVector (which for such matrices add exact zeros), up to the sign of zeros.
+ */
+public final class SignedPermutation {
+
+	private static final double EPS = 1e-12d;
+
+	// column of the non-zero entry of each row, and its sign
+	private final int c0, c1, c2;
+	private final double s0, s1, s2;
+
+	// row of the non-zero entry of each column
+	private final int r0, r1, r2;
+
+	private SignedPermutation(int c0, int c1, int c2, double s0, double s1, double s2) {
+		this.c0 = c0;
+		this.c1 = c1;
+		this.c2 = c2;
+		this.s0 = s0;
+		this.s1 = s1;
+		this.s2 = s2;
+		int[] rows = new int[3];
+		rows[c0] = 0;
+		rows[c1] = 1;
+		rows[c2] = 2;
+		r0 = rows[0];
+		r1 = rows[1];
+		r2 = rows[2];
+	}
+
+	// the permutation with the matrix C, or null if C is not a signed permutation matrix
+	public static SignedPermutation of(Matrix3x3 C) {
+		int[] columns = new int[3];
+		double[] signs = new double[3];
+		boolean[] used = new boolean[3];
+		for (int i = 0; i < 3; i++) {
+			columns[i] = -1;
+			for (int j = 0; j < 3; j++) {
+				double e = C.get(i, j);
+				if (Math.abs(Math.abs(e) - 1d) < EPS) {
+					if (columns[i] >= 0 || used[j]) {
+						return null;
+					}
+					columns[i] = j;
+					signs[i] = e > 0d ? 1d : -1d;
+					used[j] = true;
+				} else if (Math.abs(e) > EPS) {
+					return null;
+				}
+			}
+			if (columns[i] < 0) {
+				return null;
+			}
+		}
+		return new SignedPermutation(columns[0], columns[1], columns[2], signs[0], signs[1], signs[2]);
+	}
+
+	public int column(int row) {
+		return row == 0 ? c0 : row == 1 ? c1 : c2;
+	}
+
+	public double sign(int row) {
+		return row == 0 ? s0 : row == 1 ? s1 : s2;
+	}
+
+	// M = C M: row i of the result is row column(i) of M times sign(i)
+	public void leftMul(Matrix3x3 M) {
+		M.set(s0 * M.get(c0, 0), s0 * M.get(c0, 1), s0 * M.get(c0, 2),
+			s1 * M.get(c1, 0), s1 * M.get(c1, 1), s1 * M.get(c1, 2),
+			s2 * M.get(c2, 0), s2 * M.get(c2, 1), s2 * M.get(c2, 2));
+	}
+
+	// M = M C^T: column i of the result is column column(i) of M times sign(i)
+	public void timesTransposed(Matrix3x3 M) {
+		M.set(s0 * M.get(0, c0), s1 * M.get(0, c1), s2 * M.get(0, c2),
+			s0 * M.get(1, c0), s1 * M.get(1, c1), s2 * M.get(1, c2),
+			s0 * M.get(2, c0), s1 * M.get(2, c1), s2 * M.get(2, c2));
+	}
+
+	// v = C v
+	public void transform(UnitVector v) {
+		v.setComponents(s0 * component(v, c0), s1 * component(v, c1), s2 * component(v, c2));
+	}
+
+	// v = C^T v, i.e. component column(i) of the result is component i of v times sign(i)
+	public void transposedTransform(UnitVector v) {
+		v.setComponents(sign(r0) * component(v, r0), sign(r1) * component(v, r1), sign(r2) * component(v, r2));
+	}
+
+	private static double component(UnitVector v, int i) {
+		return i == 0 ? v.x() : i == 1 ? v.y() : v.z();
+	}
+}
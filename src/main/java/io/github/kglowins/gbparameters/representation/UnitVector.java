@@ -78,6 +78,15 @@ public class UnitVector  {
 	}
 	
 	
+	// without normalization, for transformations that keep the length
+	final void setComponents(double x, double y, double z) {
+		
+		this.x = x;
+		this.y = y;
+		this.z = z;
+	}
+	
+	
 	public final void set(double zenith, double azimuth) {
 		
 		double Z = zenith;
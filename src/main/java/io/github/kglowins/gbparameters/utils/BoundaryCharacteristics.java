@@ -0,0 +1,46 @@
+package io.github.kglowins.gbparameters.utils;
+
+import io.github.kglowins.gbparameters.representation.InterfaceMatrix;
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class BoundaryCharacteristics {
+    private InterfaceMatrix binit;
+    private int multiplicity;
+    private int minimumSigma;
+
+    private NearestBoundary tilt;
+    private NearestBoundary twist;
+    private NearestBoundary symmetric;
+    private NearestBoundary tilt180;
+
+    private double minimumTiltAngle;
+    private double minimumTwistAngle;
+
+    private double aprxTiltDist;
+    private double aprxTwistDist;
+    private double aprxSymmetricDist;
+    private double aprxTilt180Dist;
+
+    // work done by the AM-distance optimizers
+    private long objectiveEvaluations;
+    private long gradientEvaluations;
+
+    // some minimization hit the evaluation or time budget of the accuracy profile
+    private boolean approximate;
+
+    // a copy, as InterfaceMatrix is mutable
+    public InterfaceMatrix getBinit() {
+        return binit != null ? new InterfaceMatrix(binit) : null;
+    }
+
+    public static class BoundaryCharacteristicsBuilder {
+
+        public BoundaryCharacteristicsBuilder binit(InterfaceMatrix binit) {
+            this.binit = binit != null ? new InterfaceMatrix(binit) : null;
+            return this;
+        }
+    }
+}
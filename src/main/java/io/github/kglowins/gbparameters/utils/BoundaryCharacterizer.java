@@ -4,24 +4,48 @@ package io.github.kglowins.gbparameters.utils;
 import io.github.kglowins.gbparameters.distances.AMDistanceToTilt180;
 import io.github.kglowins.gbparameters.distances.AMDistanceToSymmetricNegativeAxis;
 import io.github.kglowins.gbparameters.distances.AMDistanceToSymmetricPositiveAxis;
+import io.github.kglowins.gbparameters.distances.AMDistanceToSymmetricSolver;
 import io.github.kglowins.gbparameters.distances.AMDistanceToTilt;
 import io.github.kglowins.gbparameters.distances.AMDistanceToTwistNegativeAxis;
 import io.github.kglowins.gbparameters.distances.AMDistanceToTwistPositiveAxis;
+import io.github.kglowins.gbparameters.distances.AMDistanceToTwistSolver;
+import io.github.kglowins.gbparameters.enums.AccuracyProfile;
+import io.github.kglowins.gbparameters.enums.BoundaryType;
+import io.github.kglowins.gbparameters.enums.CharacterizationPhase;
+import io.github.kglowins.gbparameters.enums.MinimizationMode;
 import io.github.kglowins.gbparameters.representation.AxisAngle;
 import io.github.kglowins.gbparameters.representation.CSLMisorientation;
 import io.github.kglowins.gbparameters.representation.InterfaceMatrix;
 import io.github.kglowins.gbparameters.representation.Matrix3x3;
+import io.github.kglowins.gbparameters.representation.SignedPermutation;
 import io.github.kglowins.gbparameters.representation.UnitVector;
+import org.apache.commons.math3.analysis.MultivariateFunction;
+import org.apache.commons.math3.analysis.MultivariateVectorFunction;
+import org.apache.commons.math3.exception.TooManyEvaluationsException;
 import org.apache.commons.math3.optim.InitialGuess;
 import org.apache.commons.math3.optim.MaxEval;
 import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.optim.SimpleValueChecker;
 import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
 import org.apache.commons.math3.optim.nonlinear.scalar.ObjectiveFunction;
+import org.apache.commons.math3.optim.nonlinear.scalar.ObjectiveFunctionGradient;
+import org.apache.commons.math3.optim.nonlinear.scalar.gradient.NonLinearConjugateGradientOptimizer;
 import org.apache.commons.math3.optim.nonlinear.scalar.noderiv.NelderMeadSimplex;
 import org.apache.commons.math3.optim.nonlinear.scalar.noderiv.SimplexOptimizer;
 import org.apache.commons.math3.util.FastMath;
 
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
 import static java.lang.Math.PI;
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 import static org.apache.commons.math3.util.FastMath.atan;
 import static org.apache.commons.math3.util.FastMath.cos;
@@ -29,731 +53,1586 @@ import static org.apache.commons.math3.util.FastMath.pow;
 import static org.apache.commons.math3.util.FastMath.sin;
 import static org.apache.commons.math3.util.FastMath.tan;
 
-
 public final class BoundaryCharacterizer {
-	
-	private static final double EPSILON = 1e-4d;
 
-	// input
-    private InterfaceMatrix Binit;
+	private CharacterizerConfig config;
 
-    private boolean BT;
-    private boolean Bminus;
-	private Matrix3x3[] symmetryTransformations;
-	
-	private boolean computeAMTiltDist;
-	private boolean computeAMTwistDist;
-	private boolean computeAMSymmetricDist;
-	private boolean computeAMTilt180Dist;
-	
-	private boolean decompose;
-
-	private boolean checkIfCSL;
-    private double p;
-    private double omega0;
-    private CSLMisorientation[] cslMisorientations;
-
-	private boolean computeAprxDistances;
-
-    private boolean saveDetails;
-
-    // output
-    private CSLMisorientation lowestSigma;
-		
-	private double nearestTwistDist;
-	private InterfaceMatrix equivalentForTwist;
-	private InterfaceMatrix nearestTwist;
-	private Matrix3x3 C1twist;
-	private Matrix3x3 C2twist;
-    private boolean twistT;
-    private boolean twistMinus;
-
-    private double nearestTiltDist;
-	private InterfaceMatrix equivalentForTilt;
-	private InterfaceMatrix nearestTilt;
-	private Matrix3x3 C1tilt;
-	private Matrix3x3 C2tilt;
-    private boolean tiltT;
-    private boolean tiltMinus;
-
-    private double nearestSymDist;
-	private InterfaceMatrix equivalentForSymmetric;
-	private InterfaceMatrix nearestSymmetric;
-	private Matrix3x3 C1symmetric;
-	private Matrix3x3 C2symmetric;
-    private boolean symmetricT;
-    private boolean symmetricMinus;
-
-    private double nearestTilt180Dist;
-	private InterfaceMatrix equivalentForTilt180;
-	private InterfaceMatrix nearestTilt180;
-	private Matrix3x3 C1tilt180;
-	private Matrix3x3 C2twist180;
-    private boolean tilt180T;
-    private boolean tilt180Minus;
-
-	private double minimumTwistAngle;
-	private double minimumTiltAngle;
-
-	private double aprxTwistDist;
-	private double aprxTiltDist;
-	private double aprxSymmetricDist;
-	private double aprxTilt180Dist;
-
-	private int multiplicity;
+	private BoundaryCharacteristics characteristics;
 
 	
 	public BoundaryCharacterizer() {
-				
-		computeAMTiltDist = false;
-		computeAMTwistDist = false;
-		computeAMSymmetricDist = false;
-		computeAMTilt180Dist = false;
-		
-		saveDetails = false;
-		
-		resetAMDistances();
-		resetComponents();
-				
-		equivalentForTwist = null;
-		nearestTwist = null;
-		C1twist = null;
-		C2twist = null;
-		
-		equivalentForTilt = null;
-		nearestTilt = null;
-		C1tilt = null;
-		C2tilt = null;
-		
-		equivalentForSymmetric = null;
-		nearestSymmetric = null;
-		C1symmetric = null;
-		C2symmetric = null;
-		
-		equivalentForTilt180 = null;
-		nearestTilt180 = null;
-		C1tilt180 = null;
-		C2twist180 = null;
-		
-
-		checkIfCSL = false;
-		p = 0.5d;
-		omega0 = Math.toRadians(15d);
-		lowestSigma = null;
-		
-		symmetryTransformations = null;
-		cslMisorientations = null;
-		
-		Binit = null;
-		
-		BT = true;
-		Bminus = true;
-
-		computeAprxDistances = false;
-	
-		multiplicity = 0;
+		this(CharacterizerConfig.builder().build());
+	}
+
+	public BoundaryCharacterizer(CharacterizerConfig config) {
+		this.config = config;
+		characteristics = null;
+	}
+
+	public BoundaryCharacterizer(BoundaryCharacterizer other) {
+		this(other.getConfig());
+	}
+
+	public CharacterizerConfig getConfig() {
+		return config;
 	}
 
 	public void includeTransposition(boolean BT) {
-	    this.BT = BT;
+		config = config.toBuilder().includeTransposition(BT).build();
     }
 
     public void includeInversion(boolean Bminus) {
-        this.Bminus = Bminus;
+		config = config.toBuilder().includeInversion(Bminus).build();
     }
-		
-	private void resetAMDistances() {
-		if (computeAMTwistDist) {
-		    nearestTwistDist = Double.MAX_VALUE;
-        }
-		if (computeAMTiltDist) {
-		    nearestTiltDist = Double.MAX_VALUE;
-        }
-		if (computeAMSymmetricDist) {
-		    nearestSymDist = Double.MAX_VALUE;
-        }
-		if (computeAMTilt180Dist) {
-		    nearestTilt180Dist = Double.MAX_VALUE;
-        }
-	}
-	
-	private void resetComponents() {
-		if (decompose) {
-			minimumTwistAngle = Double.MAX_VALUE;
-			minimumTiltAngle = Double.MAX_VALUE;
-		}
-	}
-	
-	private void resetAprxDistances() {
-		if (computeAprxDistances) {
-			aprxTiltDist = Double.MAX_VALUE;
-			aprxTwistDist = Double.MAX_VALUE;
-			aprxSymmetricDist = Double.MAX_VALUE;
-			aprxTilt180Dist = Double.MAX_VALUE;
-		}
-	}
-	
+
 	public void computeAMDistances(boolean toTilt, boolean toTwist, boolean toSymmetric, boolean toTilt180) {
-		computeAMTiltDist = toTilt;
-		computeAMTwistDist = toTwist;
-		computeAMSymmetricDist = toSymmetric;
-		computeAMTilt180Dist = toTilt180;
+		config = config.toBuilder().computeAMDistances(toTilt, toTwist, toSymmetric, toTilt180).build();
 	}
 	
 	public void decompose(boolean b) {
-		decompose = b;
+		config = config.toBuilder().decompose(b).build();
 	}
 
 	public void computeAprxDistances(boolean b) {
-		computeAprxDistances = b;
+		config = config.toBuilder().computeAprxDistances(b).build();
 	}
 
 	public void saveMinimizationDetails(boolean b) {
-		saveDetails = b;
+		config = config.toBuilder().saveDetails(b).build();
 	}
 
 	public void checkIfCSL(double p, double omega0, CSLMisorientation[] cslMisorientations) {
-		checkIfCSL = true;
-		this.p = p;
-		this.omega0 = omega0;
-		this.cslMisorientations = cslMisorientations;
+		config = config.toBuilder().checkIfCSL(p, omega0, cslMisorientations).build();
 	}
 
-	public void setSymmetry(Matrix3x3[] symmetryTransformations) {
-		this.symmetryTransformations = symmetryTransformations;
+	public void parallelizeEquivalents(boolean b) {
+		config = config.toBuilder().parallelEquivalents(b).build();
 	}
 
-	public void characterize(InterfaceMatrix Binit) {
-
-		this.Binit = Binit;
-		multiplicity = 0;
-		resetAMDistances();
-		resetComponents();
-		resetAprxDistances();
-		if (checkIfCSL) {
-		    lowestSigma = null;
-        }
-		
-		boolean[] transposeTF = BT ? new boolean[]{false, true} : new boolean[]{false};
-		boolean[] minusTF = Bminus ? new boolean[]{false, true} : new boolean[]{false};
-
-		for( boolean transpose : transposeTF) {
-		    for(boolean minus : minusTF) {
-                for (Matrix3x3 C1 : symmetryTransformations) {
-                    for (Matrix3x3 C2 : symmetryTransformations) {
-
-
-                        InterfaceMatrix B = new InterfaceMatrix(Binit);
-
-                        if (transpose) B.transpose();
-                        if (minus) B.toMinus();
-
-                        B.applySymmetry1(C1);
-                        B.applySymmetry2(C2);
-
-                        AxisAngle aa = new AxisAngle();
-                        aa.set(B.M());
-
-                        if (computeAMTiltDist) {
-
-                            SimplexOptimizer optimizer = new SimplexOptimizer(EPSILON, EPSILON);
-                            AMDistanceToTilt dist = new AMDistanceToTilt(B);
-
-                            PointValuePair minimum = optimizer.optimize(new MaxEval(Integer.MAX_VALUE),
-                                new ObjectiveFunction(dist),
-                                GoalType.MINIMIZE,
-                                new InitialGuess(new double[]{aa.axis().zenith(), aa.axis().azimuth(), aa.angle(), B.m1().azimuth()}),
-                                new NelderMeadSimplex(4));
-
-                            double distVal = minimum.getValue();
-                            double[] resPt = minimum.getPoint();
-
-                            if (distVal < nearestTiltDist) {
-
-                                nearestTiltDist = distVal;
-
-                                if (saveDetails) {
-
-                                    UnitVector resN = new UnitVector();
-                                    resN.set(resPt[0], resPt[1]);
-
-                                    AxisAngle resAa = new AxisAngle();
-                                    resAa.set(resN, resPt[2]);
-
-                                    Matrix3x3 resM = new Matrix3x3();
-                                    resM.set(resAa);
-
-                                    UnitVector resM1 = new UnitVector();
-                                    resM1.set(atan(
-                                        -1d / (
-                                            tan(resPt[0]) * (cos(resPt[1]) * cos(resPt[3]) + sin(resPt[1]) * sin(resPt[3]))
-                                        )
-                                    ), resPt[3]);
-
-                                    C1tilt = C1;
-                                    C2tilt = C2;
-                                    equivalentForTilt = B;
-                                    nearestTilt = new InterfaceMatrix(resM, resM1);
-                                    tiltT = transpose;
-                                    tiltMinus = minus;
-                                }
-                            }
-                        }
-
-
-                        if (computeAMTwistDist) {
-                            SimplexOptimizer optimizer = new SimplexOptimizer(EPSILON, EPSILON);
-
-                            AMDistanceToTwistPositiveAxis distPos = new AMDistanceToTwistPositiveAxis(B);
-                            AMDistanceToTwistNegativeAxis distNeg = new AMDistanceToTwistNegativeAxis(B);
-
-                            PointValuePair minimumPos = optimizer.optimize(new MaxEval(Integer.MAX_VALUE),
-                                new ObjectiveFunction(distPos),
-                                GoalType.MINIMIZE,
-                                new InitialGuess(new double[]{aa.axis().zenith(), aa.axis().azimuth(), aa.angle()}),
-                                new NelderMeadSimplex(3));
-
-                            PointValuePair minimumNeg = optimizer.optimize(new MaxEval(Integer.MAX_VALUE),
-                                new ObjectiveFunction(distNeg),
-                                GoalType.MINIMIZE,
-                                new InitialGuess(new double[]{aa.axis().zenith(), aa.axis().azimuth(), aa.angle()}),
-                                new NelderMeadSimplex(3));
-
-                            double distValPos = minimumPos.getValue();
-                            double distValNeg = minimumNeg.getValue();
-
-                            double[] resultPos = minimumPos.getPoint();
-                            double[] resultNeg = minimumNeg.getPoint();
-
-                            if (distValPos < nearestTwistDist) {
-                                nearestTwistDist = distValPos;
-                                if (saveDetails) {
-
-                                    UnitVector resN = new UnitVector();
-                                    resN.set(resultPos[0], resultPos[1]);
-
-                                    AxisAngle resAa = new AxisAngle();
-                                    resAa.set(resN, resultPos[2]);
-
-                                    Matrix3x3 resM = new Matrix3x3();
-                                    resM.set(resAa);
-
-                                    equivalentForTwist = B;
-                                    nearestTwist = new InterfaceMatrix(resM, resN);
-                                    C1twist = C1;
-                                    C2twist = C2;
-                                    twistT = transpose;
-                                    twistMinus = minus;
-                                }
-                            }
-
-                            if (distValNeg < nearestTwistDist) {
-                                nearestTwistDist = distValNeg;
-                                if (saveDetails) {
-
-                                    UnitVector resN = new UnitVector();
-                                    resN.set(resultNeg[0], resultNeg[1]);
-
-                                    AxisAngle resAa = new AxisAngle();
-                                    resAa.set(resN, resultNeg[2]);
-
-                                    Matrix3x3 resM = new Matrix3x3();
-                                    resM.set(resAa);
-
-                                    resN.negate();
-
-                                    equivalentForTwist = B;
-                                    nearestTwist = new InterfaceMatrix(resM, resN);
-                                    C1twist = C1;
-                                    C2twist = C2;
-                                    twistT = transpose;
-                                    twistMinus = minus;
-                                }
-                            }
-                        }
-
-
-                        if (computeAMSymmetricDist) {
-
-                            SimplexOptimizer optimizer = new SimplexOptimizer(EPSILON, EPSILON);
-
-                            AMDistanceToSymmetricPositiveAxis distPos = new AMDistanceToSymmetricPositiveAxis(B);
-                            AMDistanceToSymmetricNegativeAxis distNeg = new AMDistanceToSymmetricNegativeAxis(B);
-
-                            PointValuePair minimumPos = optimizer.optimize(new MaxEval(Integer.MAX_VALUE),
-                                new ObjectiveFunction(distPos),
-                                GoalType.MINIMIZE,
-                                new InitialGuess(new double[]{aa.axis().zenith(), aa.axis().azimuth()}),
-                                new NelderMeadSimplex(2));
-
-                            PointValuePair minimumNeg = optimizer.optimize(new MaxEval(Integer.MAX_VALUE),
-                                new ObjectiveFunction(distNeg),
-                                GoalType.MINIMIZE,
-                                new InitialGuess(new double[]{aa.axis().zenith(), aa.axis().azimuth()}),
-                                new NelderMeadSimplex(2));
-
-                            double distValPos = minimumPos.getValue();
-                            double distValNeg = minimumNeg.getValue();
-
-                            double[] resultPos = minimumPos.getPoint();
-                            double[] resultNeg = minimumNeg.getPoint();
-
-                            if (distValPos < nearestSymDist) {
-
-                                nearestSymDist = distValPos;
-
-                                if (saveDetails) {
-
-                                    UnitVector resN = new UnitVector();
-                                    resN.set(resultPos[0], resultPos[1]);
-
-                                    AxisAngle resAa = new AxisAngle();
-                                    resAa.set(resN, PI);
-
-                                    Matrix3x3 resM = new Matrix3x3();
-                                    resM.set(resAa);
-
-                                    equivalentForSymmetric = B;
-                                    nearestSymmetric = new InterfaceMatrix(resM, resN);
-                                    C1symmetric = C1;
-                                    C2symmetric = C2;
-                                    symmetricT = transpose;
-                                    symmetricMinus = minus;
-                                }
-                            }
-
-                            if (distValNeg < nearestSymDist) {
-
-                                nearestSymDist = distValNeg;
-
-                                if (saveDetails) {
-
-                                    UnitVector resN = new UnitVector();
-                                    resN.set(resultNeg[0], resultNeg[1]);
-
-                                    AxisAngle resAa = new AxisAngle();
-                                    resAa.set(resN, PI);
-
-                                    Matrix3x3 resM = new Matrix3x3();
-                                    resM.set(resAa);
-
-                                    resN.negate();
-
-                                    equivalentForSymmetric = B;
-                                    nearestSymmetric = new InterfaceMatrix(resM, resN);
-                                    C1symmetric = C1;
-                                    C2symmetric = C2;
-                                    symmetricT = transpose;
-                                    symmetricMinus = minus;
-                                }
-                            }
-                        }
-
-
-                        if (computeAMTilt180Dist) {
-
-                            SimplexOptimizer optimizer = new SimplexOptimizer(EPSILON, EPSILON);
-                            AMDistanceToTilt180 dist = new AMDistanceToTilt180(B);
-
-                            PointValuePair minimum = optimizer.optimize(new MaxEval(Integer.MAX_VALUE),
-                                new ObjectiveFunction(dist),
-                                GoalType.MINIMIZE,
-                                new InitialGuess(new double[]{aa.axis().zenith(), aa.axis().azimuth(), B.m1().azimuth()}),
-                                new NelderMeadSimplex(3));
-
-                            double distVal = minimum.getValue();
-                            double[] resPt = minimum.getPoint();
-
-                            if (distVal < nearestTilt180Dist) {
-
-                                nearestTilt180Dist = distVal;
-
-                                if (saveDetails) {
-
-                                    UnitVector resN = new UnitVector();
-                                    resN.set(resPt[0], resPt[1]);
-
-                                    AxisAngle resAa = new AxisAngle();
-                                    resAa.set(resN, PI);
-
-                                    Matrix3x3 resM = new Matrix3x3();
-                                    resM.set(resAa);
-
-                                    UnitVector resM1 = new UnitVector();
-                                    resM1.set(atan(-1d / (tan(resPt[0]) * (cos(resPt[1]) * cos(resPt[2]) + sin(resPt[1]) * sin(resPt[2])))), resPt[2]);
-
-                                    equivalentForTilt180 = B;
-                                    nearestTilt180 = new InterfaceMatrix(resM, resM1);
-                                    C1tilt180 = C1;
-                                    C2twist180 = C2;
-                                    tilt180T = transpose;
-                                    tilt180Minus = minus;
-                                }
-                            }
-                        }
-
-
-                        if (computeAprxDistances) {
-                            double alpha = SaferMath.acos(Math.abs(aa.axis().dot(B.m1())));
-                            double ninetyMinAlpha = Math.toRadians(90d) - alpha;
-
-                            double deltaOmega = PI - aa.angle();
-
-                            deltaOmega = deltaOmega * deltaOmega;
-
-                            double alphaScandSq = alpha * alpha + deltaOmega;
-                            double alphaIcandSq = ninetyMinAlpha * ninetyMinAlpha + deltaOmega;
-
-                            if (ninetyMinAlpha < aprxTiltDist) aprxTiltDist = ninetyMinAlpha;
-
-                            if (alpha < aprxTwistDist) aprxTwistDist = alpha;
-
-                            if (alphaScandSq < aprxSymmetricDist) aprxSymmetricDist = alphaScandSq;
-                            if (alphaIcandSq < aprxTilt180Dist) aprxTilt180Dist = alphaIcandSq;
-                        }
-
-
-                        if (decompose) {
-                            double dot = aa.axis().dot(B.m1());
-                            double Phi;
-                            double omega;
-
-                            if (Math.abs(dot) < 1e-3d) {
-                                Phi = 0d;
-                                omega = aa.angle();
-                            } else {
-                                double alpha = SaferMath.acos(aa.axis().dot(B.m1()));
-                                double tg = tan(alpha);
-                                double cos = cos(0.5d * aa.angle());
+	public void deduplicateEquivalents(boolean b) {
+		config = config.toBuilder().deduplicateEquivalents(b).build();
+	}
 
-                                Phi = FastMath.asin(sin(0.5d * aa.angle()) / Math.sqrt(1d + tg * tg * cos * cos));
-                                omega = FastMath.asin(sin(alpha) * sin(0.5d * aa.angle()));
+	public void pruneEquivalents(boolean b) {
+		config = config.toBuilder().pruneEquivalents(b).build();
+	}
 
-                                Phi = 2d * Phi;
-                                omega = 2d * omega;
-                            }
+	public void useTwistSymmetricSolvers(boolean b) {
+		config = config.toBuilder().twistSymmetricSolvers(b).build();
+	}
 
-                            if (Phi < minimumTwistAngle) {
-                                minimumTwistAngle = Phi;
-                            }
+	public void setMinimizationMode(MinimizationMode mode) {
+		config = config.toBuilder().minimizationMode(mode).build();
+	}
 
-                            if (omega < minimumTiltAngle) {
-                                minimumTiltAngle = omega;
-                            }
-                        }
+	public void setAccuracyProfile(AccuracyProfile profile) {
+		config = config.toBuilder().accuracyProfile(profile).build();
+	}
 
-                        if (checkIfCSL) {
+	public void setMetrics(CharacterizerMetrics metrics) {
+		config = config.toBuilder().metrics(metrics).build();
+	}
 
-                            for (CSLMisorientation csl : cslMisorientations) {
+	public void setSymmetry(Matrix3x3[] symmetryTransformations) {
+		config = config.toBuilder().symmetryTransformations(symmetryTransformations).build();
+	}
 
-                                Matrix3x3 M = new Matrix3x3(B.M());
-                                M.timesTransposed(csl.getM());
+	public BoundaryCharacteristics characterize(InterfaceMatrix Binit) {
+		characteristics = characterize(Binit, config);
+		return characteristics;
+	}
 
-                                double angle = SaferMath.acos(0.5 * (M.tr() - 1));
+	public static BoundaryCharacteristics characterize(InterfaceMatrix Binit, CharacterizerConfig config) {
+		CharacterizerMetrics metrics = config.getMetrics();
+		if (isNull(metrics)) {
+			Equivalents equivalents = new Equivalents(config, Binit);
+			return new Characterization(config, Binit, equivalents).characterize().toCharacteristics();
+		}
 
-                                if (angle < omega0 / pow(csl.getSigma(), p)) {
+		long start = System.nanoTime();
+		Equivalents equivalents = new Equivalents(config, Binit);
+		metrics.phaseCompleted(CharacterizationPhase.EQUIVALENTS, System.nanoTime() - start);
 
-                                    lowestSigma = csl;
-                                    break;
-                                }
-                            }
-                        }
+		BoundaryCharacteristics characteristics = new Characterization(config, Binit, equivalents).characterize()
+			.toCharacteristics();
+		metrics.boundaryCharacterized(System.nanoTime() - start);
+		return characteristics;
+	}
 
+	public List<BoundaryCharacteristics> characterizeAll(List<InterfaceMatrix> boundaries) {
+		return characterizeAll(boundaries, config);
+	}
 
-                        if (Math.abs(B.m1().x() - Binit.m1().x()) < 1e-3d
-                            && Math.abs(B.m1().y() - Binit.m1().y()) < 1e-3d
-                            && Math.abs(B.m1().z() - Binit.m1().z()) < 1e-3d
-                            && Math.abs(B.M().e00() - Binit.M().e00()) < 1e-3d &&
-                            Math.abs(B.M().e01() - Binit.M().e01()) < 1e-3d &&
-                            Math.abs(B.M().e02() - Binit.M().e02()) < 1e-3d &&
+	public List<BoundaryCharacteristics> characterizeAll(List<InterfaceMatrix> boundaries, ForkJoinPool pool) {
+		return characterizeAll(boundaries, config, pool);
+	}
 
-                            Math.abs(B.M().e10() - Binit.M().e10()) < 1e-3d &&
-                            Math.abs(B.M().e11() - Binit.M().e11()) < 1e-3d &&
-                            Math.abs(B.M().e12() - Binit.M().e12()) < 1e-3d &&
+	public BoundaryCharacteristics[] characterizeAll(InterfaceMatrix[] boundaries) {
+		return characterizeAll(Arrays.asList(boundaries)).toArray(new BoundaryCharacteristics[0]);
+	}
 
-                            Math.abs(B.M().e20() - Binit.M().e20()) < 1e-3d &&
-                            Math.abs(B.M().e21() - Binit.M().e21()) < 1e-3d &&
-                            Math.abs(B.M().e22() - Binit.M().e22()) < 1e-3d
-                        ) {
+	public static List<BoundaryCharacteristics> characterizeAll(List<InterfaceMatrix> boundaries,
+																CharacterizerConfig config) {
+		return characterizeAll(boundaries, config, ForkJoinPool.commonPool());
+	}
 
+	public static List<BoundaryCharacteristics> characterizeAll(List<InterfaceMatrix> boundaries,
+																CharacterizerConfig config, ForkJoinPool pool) {
+		BoundaryCharacteristics[] results = new BoundaryCharacteristics[boundaries.size()];
+		pool.invoke(new CharacterizationTask(config, boundaries, results, 0, boundaries.size()));
+		return Arrays.asList(results);
+	}
 
-                            multiplicity++;
-                        }
-                    }
-                }
-            }
-        }
+	public BoundaryCharacteristics getCharacteristics() {
+		return characteristics;
 	}
 
 	public int getMinimumSigma() {
-		return nonNull(lowestSigma) ? lowestSigma.getSigma() : 0;
+		return nonNull(characteristics) ? characteristics.getMinimumSigma() : 0;
 	}
 
 	public double getNearestTwistDist() {
-		return Math.sqrt(nearestTwistDist);
+		return distanceOf(nearestTwistBoundary());
 	}
 
 	public InterfaceMatrix getEquivalentForTwist() {
-		return equivalentForTwist;
+		return nonNull(nearestTwistBoundary()) ? nearestTwistBoundary().getEquivalent() : null;
 	}
 
 	public InterfaceMatrix getNearestTwist() {
-		return nearestTwist;
+		return nonNull(nearestTwistBoundary()) ? nearestTwistBoundary().getNearest() : null;
 	}
 
 	public Matrix3x3 getC1twist() {
-		return C1twist;
+		return nonNull(nearestTwistBoundary()) ? nearestTwistBoundary().getC1() : null;
 	}
 
 	public Matrix3x3 getC2twist() {
-		return C2twist;
+		return nonNull(nearestTwistBoundary()) ? nearestTwistBoundary().getC2() : null;
 	}
 
 	public double getNearestTiltDist() {
-		return Math.sqrt(nearestTiltDist);
+		return distanceOf(nearestTiltBoundary());
 	}
 
 	public InterfaceMatrix getEquivalentForTilt() {
-		return equivalentForTilt;
+		return nonNull(nearestTiltBoundary()) ? nearestTiltBoundary().getEquivalent() : null;
 	}
 
 	public InterfaceMatrix getNearestTilt() {
-		return nearestTilt;
+		return nonNull(nearestTiltBoundary()) ? nearestTiltBoundary().getNearest() : null;
 	}
 
 	public Matrix3x3 getC1tilt() {
-		return C1tilt;
+		return nonNull(nearestTiltBoundary()) ? nearestTiltBoundary().getC1() : null;
 	}
 
 	public Matrix3x3 getC2tilt() {
-		return C2tilt;
+		return nonNull(nearestTiltBoundary()) ? nearestTiltBoundary().getC2() : null;
 	}
 
 	public double getNearestSymDist() {
-		return Math.sqrt(nearestSymDist);
+		return distanceOf(nearestSymmetricBoundary());
 	}
 
 	public InterfaceMatrix getEquivalentForSymmetric() {
-		return equivalentForSymmetric;
+		return nonNull(nearestSymmetricBoundary()) ? nearestSymmetricBoundary().getEquivalent() : null;
 	}
 
 	public InterfaceMatrix getNearestSymmetric() {
-		return nearestSymmetric;
+		return nonNull(nearestSymmetricBoundary()) ? nearestSymmetricBoundary().getNearest() : null;
 	}
 
 	public Matrix3x3 getC1symmetric() {
-		return C1symmetric;
+		return nonNull(nearestSymmetricBoundary()) ? nearestSymmetricBoundary().getC1() : null;
 	}
 
 	public Matrix3x3 getC2symmetric() {
-		return C2symmetric;
+		return nonNull(nearestSymmetricBoundary()) ? nearestSymmetricBoundary().getC2() : null;
 	}
 
 	public double getNearestTilt180Dist() {
-		return Math.sqrt(nearestTilt180Dist);
+		return distanceOf(nearestTilt180Boundary());
 	}
 
 	public InterfaceMatrix getEquivalentForTilt180() {
-		return equivalentForTilt180;
+		return nonNull(nearestTilt180Boundary()) ? nearestTilt180Boundary().getEquivalent() : null;
 	}
 
 	public InterfaceMatrix getNearestTilt180() {
-		return nearestTilt180;
+		return nonNull(nearestTilt180Boundary()) ? nearestTilt180Boundary().getNearest() : null;
 	}
 
 	public Matrix3x3 getC1tilt180() {
-		return C1tilt180;
+		return nonNull(nearestTilt180Boundary()) ? nearestTilt180Boundary().getC1() : null;
 	}
 
 	public Matrix3x3 getC2twist180() {
-		return C2twist180;
+		return nonNull(nearestTilt180Boundary()) ? nearestTilt180Boundary().getC2() : null;
 	}
 
 	public double getMinimumTiltAngle() {
-		return minimumTiltAngle;
+		return nonNull(characteristics) ? characteristics.getMinimumTiltAngle() : 0d;
 	}
 	
 	public double getMinimumTwistAngle() {
-		return minimumTwistAngle;
+		return nonNull(characteristics) ? characteristics.getMinimumTwistAngle() : 0d;
 	}
 
 	public double getAprxTwistDist() {
-		return aprxTwistDist;
+		return nonNull(characteristics) ? characteristics.getAprxTwistDist() : 0d;
 	}
 	
 	public double getAprxTiltDist() {
-		return aprxTiltDist;
+		return nonNull(characteristics) ? characteristics.getAprxTiltDist() : 0d;
 	}
 	
 	public double getAprxSymmetricDist() {
-		return Math.sqrt(aprxSymmetricDist);
+		return nonNull(characteristics) ? characteristics.getAprxSymmetricDist() : 0d;
 	}
 	
 	public double getAprxTilt180Dist() {
-		return Math.sqrt(aprxTilt180Dist);
+		return nonNull(characteristics) ? characteristics.getAprxTilt180Dist() : 0d;
 	}
 
 	public boolean isComputeAMTiltDist() {
-		return computeAMTiltDist;
+		return config.isComputeAMTiltDist();
 	}
 
 	public boolean isComputeAMTwistDist() {
-		return computeAMTwistDist;
+		return config.isComputeAMTwistDist();
 	}
 
 	public boolean isComputeAMSymmetricDist() {
-		return computeAMSymmetricDist;
+		return config.isComputeAMSymmetricDist();
 	}
 
 	public boolean isComputeAMTilt180Dist() {
-		return computeAMTilt180Dist;
+		return config.isComputeAMTilt180Dist();
 	}
 
     public boolean isTwistT() {
-        return twistT;
+        return nonNull(nearestTwistBoundary()) && nearestTwistBoundary().isTransposed();
     }
 
     public boolean isTwistMinus() {
-        return twistMinus;
+        return nonNull(nearestTwistBoundary()) && nearestTwistBoundary().isInverted();
     }
 
     public boolean isTiltT() {
-        return tiltT;
+        return nonNull(nearestTiltBoundary()) && nearestTiltBoundary().isTransposed();
     }
 
     public boolean isTiltMinus() {
-        return tiltMinus;
+        return nonNull(nearestTiltBoundary()) && nearestTiltBoundary().isInverted();
     }
 
     public boolean isSymmetricT() {
-        return symmetricT;
+        return nonNull(nearestSymmetricBoundary()) && nearestSymmetricBoundary().isTransposed();
     }
 
     public boolean isSymmetricMinus() {
-        return symmetricMinus;
+        return nonNull(nearestSymmetricBoundary()) && nearestSymmetricBoundary().isInverted();
     }
 
     public boolean isTilt180T() {
-        return tilt180T;
+        return nonNull(nearestTilt180Boundary()) && nearestTilt180Boundary().isTransposed();
     }
 
     public boolean isTilt180Minus() {
-        return tilt180Minus;
+        return nonNull(nearestTilt180Boundary()) && nearestTilt180Boundary().isInverted();
     }
 
     public boolean isDecompose() {
-		return decompose;
+		return config.isDecompose();
 	}
 
 	public boolean isCheckIfCSL() {
-		return checkIfCSL;
+		return config.isCheckIfCSL();
 	}
 
 	public InterfaceMatrix getBinit() {
-		return Binit;
+		return nonNull(characteristics) ? characteristics.getBinit() : null;
 	}
 
 	public int getMultiplicity() {
-		return multiplicity;
+		return nonNull(characteristics) ? characteristics.getMultiplicity() : 0;
+	}
+
+	public boolean isApproximate() {
+		return nonNull(characteristics) && characteristics.isApproximate();
+	}
+
+	private NearestBoundary nearestTwistBoundary() {
+		return nonNull(characteristics) ? characteristics.getTwist() : null;
+	}
+
+	private NearestBoundary nearestTiltBoundary() {
+		return nonNull(characteristics) ? characteristics.getTilt() : null;
+	}
+
+	private NearestBoundary nearestSymmetricBoundary() {
+		return nonNull(characteristics) ? characteristics.getSymmetric() : null;
+	}
+
+	private NearestBoundary nearestTilt180Boundary() {
+		return nonNull(characteristics) ? characteristics.getTilt180() : null;
+	}
+
+	private static double distanceOf(NearestBoundary nearest) {
+		return isNull(nearest) ? 0d : nearest.getDistance();
+	}
+
+
+	/*
+	 * Runs a visitor over a range of positions, each leaf on a fresh part of the given characterization. In
+	 * parallel, the range is split in the pool of the calling task (that of characterizeAll), and only a call
+	 * from outside any pool uses the common pool.
+	 */
+	private static Characterization visit(Characterization characterization, RangeVisitor visitor, int count,
+										  boolean parallel) {
+		if (parallel) {
+			RangeTask task = new RangeTask(characterization, visitor, 0, count);
+			return characterization.merge(ForkJoinTask.inForkJoinPool() ? task.invoke()
+				: ForkJoinPool.commonPool().invoke(task));
+		}
+		return visitor.visit(characterization, 0, count);
+	}
+
+
+	private interface RangeVisitor {
+		Characterization visit(Characterization part, int from, int to);
+	}
+
+
+	private static final class RangeTask extends RecursiveTask<Characterization> {
+
+		private static final long serialVersionUID = 1L;
+
+		private static final int LEAF_SIZE = 16;
+
+		private final Characterization characterization;
+		private final RangeVisitor visitor;
+		private final int from;
+		private final int to;
+
+		RangeTask(Characterization characterization, RangeVisitor visitor, int from, int to) {
+			this.characterization = characterization;
+			this.visitor = visitor;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Characterization compute() {
+			if (to - from <= LEAF_SIZE) {
+				return visitor.visit(characterization.part(), from, to);
+			}
+			int mid = (from + to) >>> 1;
+			RangeTask later = new RangeTask(characterization, visitor, mid, to);
+			later.fork();
+			Characterization earlier = new RangeTask(characterization, visitor, from, mid).compute();
+			return earlier.merge(later.join());
+		}
+	}
+
+
+	// all equivalents of a boundary in visiting order; built once per boundary and only read afterwards
+	private static final class Equivalents {
+
+		private static final double QUANTUM = 1e-9d;
+
+		private final Matrix3x3[] symmetryTransformations;
+		private final SignedPermutation[] permutations;
+		private final int perMinus;
+		private final int perTranspose;
+
+		private final InterfaceMatrix[] matrices;
+		private final AxisAngle[] axisAngles;
+		private final double[] planeAngles;
+		private final boolean[] distinct;
+
+		Equivalents(CharacterizerConfig config, InterfaceMatrix Binit) {
+			symmetryTransformations = config.getSymmetryTransformations();
+			permutations = SymmetryTable.signedPermutations(symmetryTransformations);
+			boolean[] transposeTF = config.isIncludeTransposition() ? new boolean[]{false, true} : new boolean[]{false};
+			boolean[] minusTF = config.isIncludeInversion() ? new boolean[]{false, true} : new boolean[]{false};
+
+			perMinus = symmetryTransformations.length * symmetryTransformations.length;
+			perTranspose = minusTF.length * perMinus;
+
+			int count = transposeTF.length * perTranspose;
+			matrices = new InterfaceMatrix[count];
+			axisAngles = new AxisAngle[count];
+			planeAngles = new double[count];
+			distinct = new boolean[count];
+
+			Set<Key> seen = config.isDeduplicateEquivalents() ? new HashSet<>(2 * count) : null;
+
+			int index = 0;
+			for (boolean transpose : transposeTF) {
+				for (boolean minus : minusTF) {
+					for (int c1 = 0; c1 < symmetryTransformations.length; c1++) {
+						for (int c2 = 0; c2 < symmetryTransformations.length; c2++) {
+
+							InterfaceMatrix B = new InterfaceMatrix(Binit);
+
+							if (transpose) B.transpose();
+							if (minus) B.toMinus();
+
+							if (permutations != null) {
+								B.applySymmetry1(permutations[c1]);
+								B.applySymmetry2(permutations[c2]);
+							} else {
+								B.applySymmetry1(symmetryTransformations[c1]);
+								B.applySymmetry2(symmetryTransformations[c2]);
+							}
+
+							AxisAngle aa = new AxisAngle();
+							aa.set(B.M());
+
+							matrices[index] = B;
+							axisAngles[index] = aa;
+							// angle between m1 and M^T m1 = -m2
+							planeAngles[index] = SaferMath.acos(-B.m1().dot(B.m2()));
+							distinct[index] = isNull(seen) || seen.add(new Key(B));
+							index++;
+						}
+					}
+				}
+			}
+		}
+
+		int count() {
+			return matrices.length;
+		}
+
+		boolean transposed(int index) {
+			return index / perTranspose == 1;
+		}
+
+		boolean inverted(int index) {
+			return (index % perTranspose) / perMinus == 1;
+		}
+
+		Matrix3x3 C1(int index) {
+			return symmetryTransformations[(index % perMinus) / symmetryTransformations.length];
+		}
+
+		Matrix3x3 C2(int index) {
+			return symmetryTransformations[index % symmetryTransformations.length];
+		}
+
+		/*
+		 * Lower bound on the squared AM distance from an equivalent (M, m1, m2) to the boundaries of a given type.
+		 * For any boundary (M', m1', m2'), |angle(M') - angle(M)| <= omega and the angle between m1' and -m2'
+		 * differs from the one between m1 and -m2 by at most theta1 + theta2. The latter angle is 0 for twist
+		 * and symmetric boundaries, angle(M') for tilt boundaries and PI for 180-degree tilts, which gives
+		 * omega^2 + (theta1^2 + theta2^2) / 2 >= omega^2 + (theta1 + theta2)^2 / 4 >= the bounds below.
+		 */
+		double lowerBound(BoundaryType target, int index) {
+			double omega = axisAngles[index].angle();
+			double beta = planeAngles[index];
+
+			switch (target) {
+				case TILT:
+					return (omega - beta) * (omega - beta) / 5d;
+				case TWIST:
+					return 0.25d * beta * beta;
+				case SYMMETRIC:
+					return (PI - omega) * (PI - omega) + 0.25d * beta * beta;
+				case TILT180:
+					return (PI - omega) * (PI - omega) + 0.25d * (PI - beta) * (PI - beta);
+				default:
+					throw new IllegalArgumentException("Unknown target: " + target);
+			}
+		}
+
+		// distinct equivalents, in order of increasing lower bound if the minimizations are to be pruned
+		int[] minimizationOrder(BoundaryType target, boolean byLowerBound) {
+			Integer[] order = new Integer[matrices.length];
+			int size = 0;
+			for (int index = 0; index < matrices.length; index++) {
+				if (distinct[index]) {
+					order[size++] = index;
+				}
+			}
+			if (byLowerBound) {
+				Arrays.sort(order, 0, size, Comparator.comparingDouble(index -> lowerBound(target, index)));
+			}
+
+			int[] result = new int[size];
+			for (int position = 0; position < size; position++) {
+				result[position] = order[position];
+			}
+			return result;
+		}
+
+		private static final class Key {
+
+			private final long[] quantized;
+			private final int hash;
+
+			Key(InterfaceMatrix B) {
+				Matrix3x3 M = B.M();
+				UnitVector m1 = B.m1();
+				quantized = new long[]{
+					quantize(M.e00()), quantize(M.e01()), quantize(M.e02()),
+					quantize(M.e10()), quantize(M.e11()), quantize(M.e12()),
+					quantize(M.e20()), quantize(M.e21()), quantize(M.e22()),
+					quantize(m1.x()), quantize(m1.y()), quantize(m1.z())
+				};
+				hash = Arrays.hashCode(quantized);
+			}
+
+			private static long quantize(double value) {
+				return Math.round(value / QUANTUM);
+			}
+
+			@Override
+			public boolean equals(Object other) {
+				return other instanceof Key && Arrays.equals(quantized, ((Key) other).quantized);
+			}
+
+			@Override
+			public int hashCode() {
+				return hash;
+			}
+		}
+	}
+
+
+	private static final class BudgetExceededException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		BudgetExceededException() {
+			super(null, null, false, false);
+		}
+	}
+
+	/*
+	 * Objective that keeps track of the best point evaluated so far and refuses further evaluations once
+	 * the evaluation limit or the deadline is reached; the first evaluation is always allowed.
+	 */
+	private static final class BudgetedFunction implements MultivariateFunction {
+
+		// how often the clock is read, as a mask on the evaluation count
+		private static final int CLOCK_MASK = 15;
+
+		private final MultivariateFunction function;
+		private final int maxEvaluations;
+		private final long deadline;
+
+		private int evaluations;
+		private double bestValue;
+		private double[] bestPoint;
+
+		BudgetedFunction(MultivariateFunction function, int maxEvaluations, long deadline) {
+			this.function = function;
+			this.maxEvaluations = maxEvaluations;
+			this.deadline = deadline;
+			evaluations = 0;
+			bestValue = Double.POSITIVE_INFINITY;
+			bestPoint = null;
+		}
+
+		@Override
+		public double value(double[] point) {
+			if (nonNull(bestPoint) && (evaluations >= maxEvaluations
+				|| (evaluations & CLOCK_MASK) == 0 && deadline != Long.MAX_VALUE && System.nanoTime() > deadline)) {
+				throw new BudgetExceededException();
+			}
+			double value = function.value(point);
+			evaluations++;
+			if (isNull(bestPoint) || value < bestValue) {
+				bestValue = value;
+				bestPoint = point.clone();
+			}
+			return value;
+		}
+
+		PointValuePair best() {
+			return new PointValuePair(bestPoint, bestValue);
+		}
+	}
+
+	/*
+	 * Rotation G of the sample frame under which the AM distance is invariant: the distance from B to a tilt
+	 * (twist, ...) boundary equals that from (G M G^T, G m1, G m2) to the rotated one. The zenith-azimuth
+	 * parameterization of the misorientation axis is singular at the poles, so the gradient path minimizes in
+	 * a frame in which the starting axis lies away from them and maps the result back with G^T.
+	 */
+	private static final class Frame {
+
+		static final double TILT_ZENITH = PI / 4d;
+		static final double AXIAL_ZENITH = PI / 2d;
+
+		static final Frame IDENTITY = new Frame(null, null);
+
+		private final Matrix3x3 G;
+		private final Matrix3x3 GT;
+
+		private Frame(Matrix3x3 G, Matrix3x3 GT) {
+			this.G = G;
+			this.GT = GT;
+		}
+
+		// rotation taking the given axis to the one with the given zenith and zero azimuth
+		static Frame of(UnitVector axis, double zenith) {
+			UnitVector target = new UnitVector();
+			target.set(zenith, 0d);
+
+			double nx = axis.y() * target.z() - axis.z() * target.y();
+			double ny = axis.z() * target.x() - axis.x() * target.z();
+			double nz = axis.x() * target.y() - axis.y() * target.x();
+			double sin = Math.sqrt(nx * nx + ny * ny + nz * nz);
+			double cos = axis.dot(target);
+
+			UnitVector rotationAxis = new UnitVector();
+			if (sin > 1e-12d) {
+				rotationAxis.set(nx, ny, nz);
+			} else if (cos > 0d) {
+				return IDENTITY;
+			} else {
+				// opposite axes; any axis perpendicular to the target will do
+				rotationAxis.set(zenith + PI / 2d, 0d);
+			}
+
+			AxisAngle rotation = new AxisAngle();
+			rotation.set(rotationAxis, FastMath.atan2(sin, cos));
+
+			Matrix3x3 G = new Matrix3x3();
+			G.set(rotation);
+			Matrix3x3 GT = new Matrix3x3(G);
+			GT.transpose();
+			return new Frame(G, GT);
+		}
+
+		InterfaceMatrix toFrame(InterfaceMatrix B) {
+			return rotated(B, G);
+		}
+
+		InterfaceMatrix fromFrame(InterfaceMatrix B) {
+			return rotated(B, GT);
+		}
+
+		UnitVector toFrame(UnitVector v) {
+			if (isNull(G)) {
+				return v;
+			}
+			UnitVector rotated = new UnitVector(v);
+			rotated.transform(G);
+			return rotated;
+		}
+
+		private static InterfaceMatrix rotated(InterfaceMatrix B, Matrix3x3 R) {
+			if (isNull(R)) {
+				return B;
+			}
+			InterfaceMatrix rotated = new InterfaceMatrix(B);
+			rotated.applySymmetry1(R);
+			rotated.applySymmetry2(R);
+			return rotated;
+		}
+	}
+
+	/*
+	 * State of a single characterize call or of a part of its equivalents; a part is never shared between threads.
+	 * Among equal minima the equivalent with the lowest index wins, so the results do not depend on the order
+	 * in which equivalents are visited or on how they are split between parts.
+	 */
+	private static final class Characterization {
+
+		// margin for rounding errors in the lower bounds
+		private static final double BOUND_SLACK = 1e-9d;
+
+		// input
+		private final CharacterizerConfig config;
+		private final InterfaceMatrix Binit;
+		private final Equivalents equivalents;
+
+		private final boolean computeAMTiltDist;
+		private final boolean computeAMTwistDist;
+		private final boolean computeAMSymmetricDist;
+		private final boolean computeAMTilt180Dist;
+
+		private final boolean decompose;
+
+		private final boolean checkIfCSL;
+		private final double p;
+		private final double omega0;
+		private final CSLMisorientation[] cslMisorientations;
+
+		private final boolean computeAprxDistances;
+
+		private final boolean saveDetails;
+
+		private final boolean pruneEquivalents;
+
+		private final boolean twistSymmetricSolvers;
+
+		private final MinimizationMode minimizationMode;
+		private final AccuracyProfile accuracyProfile;
+
+		// System.nanoTime() after which minimizations stop at their first evaluation
+		private final long deadline;
+
+		// null if not collected
+		private final CharacterizerMetrics metrics;
+
+		// squared minima found so far by all parts, as double bits; non-negative doubles order like their bits
+		private final AtomicLong[] incumbents;
+
+		// output
+		private CSLMisorientation lowestSigma;
+		private int lowestSigmaIndex;
+
+		private double nearestTwistDist;
+		private int twistIndex;
+		private InterfaceMatrix equivalentForTwist;
+		private InterfaceMatrix nearestTwist;
+		private Matrix3x3 C1twist;
+		private Matrix3x3 C2twist;
+		private boolean twistT;
+		private boolean twistMinus;
+
+		private double nearestTiltDist;
+		private int tiltIndex;
+		private InterfaceMatrix equivalentForTilt;
+		private InterfaceMatrix nearestTilt;
+		private Matrix3x3 C1tilt;
+		private Matrix3x3 C2tilt;
+		private boolean tiltT;
+		private boolean tiltMinus;
+
+		private double nearestSymDist;
+		private int symmetricIndex;
+		private InterfaceMatrix equivalentForSymmetric;
+		private InterfaceMatrix nearestSymmetric;
+		private Matrix3x3 C1symmetric;
+		private Matrix3x3 C2symmetric;
+		private boolean symmetricT;
+		private boolean symmetricMinus;
+
+		private double nearestTilt180Dist;
+		private int tilt180Index;
+		private InterfaceMatrix equivalentForTilt180;
+		private InterfaceMatrix nearestTilt180;
+		private Matrix3x3 C1tilt180;
+		private Matrix3x3 C2twist180;
+		private boolean tilt180T;
+		private boolean tilt180Minus;
+
+		private double minimumTwistAngle;
+		private double minimumTiltAngle;
+
+		private double aprxTwistDist;
+		private double aprxTiltDist;
+		private double aprxSymmetricDist;
+		private double aprxTilt180Dist;
+
+		private int multiplicity;
+
+		private long objectiveEvaluations;
+		private long gradientEvaluations;
+		private long iterations;
+
+		private boolean approximate;
+
+		Characterization(CharacterizerConfig config, InterfaceMatrix Binit, Equivalents equivalents) {
+			this(config, Binit, equivalents, newIncumbents(), deadline(config.getAccuracyProfile()));
+		}
+
+		private Characterization(CharacterizerConfig config, InterfaceMatrix Binit, Equivalents equivalents,
+								 AtomicLong[] incumbents, long deadline) {
+			this.config = config;
+			this.Binit = Binit;
+			this.equivalents = equivalents;
+			this.incumbents = incumbents;
+			this.deadline = deadline;
+
+			computeAMTiltDist = config.isComputeAMTiltDist();
+			computeAMTwistDist = config.isComputeAMTwistDist();
+			computeAMSymmetricDist = config.isComputeAMSymmetricDist();
+			computeAMTilt180Dist = config.isComputeAMTilt180Dist();
+
+			decompose = config.isDecompose();
+
+			checkIfCSL = config.isCheckIfCSL();
+			p = config.getP();
+			omega0 = config.getOmega0();
+			cslMisorientations = config.getCslMisorientations();
+
+			computeAprxDistances = config.isComputeAprxDistances();
+
+			saveDetails = config.isSaveDetails();
+
+			pruneEquivalents = config.isPruneEquivalents();
+
+			twistSymmetricSolvers = config.isTwistSymmetricSolvers();
+
+			minimizationMode = config.getMinimizationMode();
+			accuracyProfile = config.getAccuracyProfile();
+			metrics = config.getMetrics();
+
+			nearestTwistDist = Double.MAX_VALUE;
+			nearestTiltDist = Double.MAX_VALUE;
+			nearestSymDist = Double.MAX_VALUE;
+			nearestTilt180Dist = Double.MAX_VALUE;
+
+			twistIndex = Integer.MAX_VALUE;
+			tiltIndex = Integer.MAX_VALUE;
+			symmetricIndex = Integer.MAX_VALUE;
+			tilt180Index = Integer.MAX_VALUE;
+
+			minimumTwistAngle = Double.MAX_VALUE;
+			minimumTiltAngle = Double.MAX_VALUE;
+
+			aprxTiltDist = Double.MAX_VALUE;
+			aprxTwistDist = Double.MAX_VALUE;
+			aprxSymmetricDist = Double.MAX_VALUE;
+			aprxTilt180Dist = Double.MAX_VALUE;
+
+			lowestSigma = null;
+			lowestSigmaIndex = -1;
+			multiplicity = 0;
+
+			objectiveEvaluations = 0L;
+			gradientEvaluations = 0L;
+			iterations = 0L;
+
+			approximate = false;
+		}
+
+		private static long deadline(AccuracyProfile profile) {
+			long budget = profile.getTimeBudgetMillis();
+			return budget > 0L ? System.nanoTime() + budget * 1000000L : Long.MAX_VALUE;
+		}
+
+		private static AtomicLong[] newIncumbents() {
+			AtomicLong[] incumbents = new AtomicLong[BoundaryType.values().length];
+			for (int i = 0; i < incumbents.length; i++) {
+				incumbents[i] = new AtomicLong(Double.doubleToLongBits(Double.MAX_VALUE));
+			}
+			return incumbents;
+		}
+
+		// empty characterization of the same equivalents, sharing the incumbent minima with this one
+		Characterization part() {
+			return new Characterization(config, Binit, equivalents, incumbents, deadline);
+		}
+
+		Characterization characterize() {
+			boolean parallel = config.isParallelEquivalents();
+
+			Characterization result = BoundaryCharacterizer.visit(this, Characterization::visit,
+				equivalents.count(), parallel);
+
+			for (BoundaryType target : BoundaryType.values()) {
+				if (isComputed(target)) {
+					int[] order = equivalents.minimizationOrder(target, pruneEquivalents);
+					if (nonNull(metrics)) {
+						metrics.equivalentsSkipped(target, equivalents.count() - order.length);
+					}
+					result = BoundaryCharacterizer.visit(result,
+						(part, from, to) -> part.minimize(target, order, from, to), order.length, parallel);
+				}
+			}
+			return result;
+		}
+
+		private boolean isComputed(BoundaryType target) {
+			switch (target) {
+				case TILT:
+					return computeAMTiltDist;
+				case TWIST:
+					return computeAMTwistDist;
+				case SYMMETRIC:
+					return computeAMSymmetricDist;
+				case TILT180:
+					return computeAMTilt180Dist;
+				default:
+					throw new IllegalArgumentException("Unknown target: " + target);
+			}
+		}
+
+		// runs the AM-distance minimizations for equivalents order[from], ..., order[to - 1]
+		Characterization minimize(BoundaryType target, int[] order, int from, int to) {
+			AtomicLong incumbent = incumbents[target.ordinal()];
+
+			for (int position = from; position < to; position++) {
+				int index = order[position];
+
+				// the order is by increasing bound, so none of the remaining equivalents can do better either
+				if (pruneEquivalents
+					&& equivalents.lowerBound(target, index) - BOUND_SLACK > Double.longBitsToDouble(incumbent.get())) {
+					if (nonNull(metrics)) {
+						metrics.equivalentsSkipped(target, to - position);
+					}
+					break;
+				}
+
+				long start = nonNull(metrics) ? System.nanoTime() : 0L;
+				long evaluationsBefore = objectiveEvaluations;
+				long iterationsBefore = iterations;
+
+				double minimum;
+				switch (target) {
+					case TILT:
+						minimum = minimizeTilt(index);
+						break;
+					case TWIST:
+						minimum = minimizeTwist(index);
+						break;
+					case SYMMETRIC:
+						minimum = minimizeSymmetric(index);
+						break;
+					case TILT180:
+						minimum = minimizeTilt180(index);
+						break;
+					default:
+						throw new IllegalArgumentException("Unknown target: " + target);
+				}
+				if (nonNull(metrics)) {
+					metrics.minimized(target, System.nanoTime() - start, objectiveEvaluations - evaluationsBefore,
+						iterations - iterationsBefore);
+				}
+				if (minimum >= 0d) {
+					incumbent.accumulateAndGet(Double.doubleToLongBits(minimum), Math::min);
+				}
+			}
+			return this;
+		}
+
+		private static boolean precedes(double distance, int index, double bestDistance, int bestIndex) {
+			return distance < bestDistance || (distance == bestDistance && index < bestIndex);
+		}
+
+		/*
+		 * Minimizes one AM-distance objective starting from the given parameters. A gradient path that runs out of
+		 * the profile's evaluations without converging hands over to the simplex at the best point it reached, and
+		 * both draw on the same evaluation and time budget.
+		 */
+		private PointValuePair optimize(MultivariateFunction dist, MultivariateVectorFunction gradient, double[] start) {
+			BudgetedFunction budgeted = new BudgetedFunction(dist, accuracyProfile.getMaxEvaluations(), deadline);
+			try {
+				if (minimizationMode == MinimizationMode.GRADIENT) {
+					NonLinearConjugateGradientOptimizer optimizer = new NonLinearConjugateGradientOptimizer(
+						NonLinearConjugateGradientOptimizer.Formula.POLAK_RIBIERE,
+						new SimpleValueChecker(accuracyProfile.getGradientTolerance(),
+							0.01d * accuracyProfile.getGradientTolerance()));
+
+					try {
+						return optimizer.optimize(new MaxEval(accuracyProfile.getMaxEvaluations()),
+							new ObjectiveFunction(budgeted),
+							new ObjectiveFunctionGradient(arg -> {
+								gradientEvaluations++;
+								return gradient.value(arg);
+							}),
+							GoalType.MINIMIZE,
+							new InitialGuess(start));
+					} catch (TooManyEvaluationsException e) {
+						// no convergence; the simplex below continues from the best point so far
+						start = budgeted.best().getPoint();
+					} finally {
+						iterations += optimizer.getIterations();
+					}
+				}
+
+				double tolerance = accuracyProfile.getSimplexTolerance();
+				SimplexOptimizer optimizer = new SimplexOptimizer(tolerance, tolerance);
+				try {
+					return optimizer.optimize(new MaxEval(Integer.MAX_VALUE),
+						new ObjectiveFunction(budgeted),
+						GoalType.MINIMIZE,
+						new InitialGuess(start),
+						new NelderMeadSimplex(start.length, accuracyProfile.getSimplexStep()));
+				} finally {
+					iterations += optimizer.getIterations();
+				}
+			} catch (BudgetExceededException e) {
+				approximate = true;
+				return budgeted.best();
+			} finally {
+				objectiveEvaluations += budgeted.evaluations;
+			}
+		}
+
+		// the simplex works in the frame of the equivalent itself, the gradient path in one rotated away from the poles
+		private Frame frame(UnitVector axis, double zenith) {
+			return minimizationMode == MinimizationMode.GRADIENT ? Frame.of(axis, zenith) : Frame.IDENTITY;
+		}
+
+		private double minimizeTilt(int index) {
+
+			boolean transpose = equivalents.transposed(index);
+			boolean minus = equivalents.inverted(index);
+			Matrix3x3 C1 = equivalents.C1(index);
+			Matrix3x3 C2 = equivalents.C2(index);
+
+			InterfaceMatrix B = equivalents.matrices[index];
+			AxisAngle aa = equivalents.axisAngles[index];
+
+			Frame frame = frame(aa.axis(), Frame.TILT_ZENITH);
+			InterfaceMatrix Bframe = frame.toFrame(B);
+			UnitVector axis = frame.toFrame(aa.axis());
+
+			AMDistanceToTilt dist = new AMDistanceToTilt(Bframe);
+
+			PointValuePair minimum = optimize(dist, dist.gradient(),
+				new double[]{axis.zenith(), axis.azimuth(), aa.angle(), Bframe.m1().azimuth()});
+
+			double distVal = minimum.getValue();
+			double[] resPt = minimum.getPoint();
+
+			if (precedes(distVal, index, nearestTiltDist, tiltIndex)) {
+
+				nearestTiltDist = distVal;
+				tiltIndex = index;
+
+				if (saveDetails) {
+
+					UnitVector resN = new UnitVector();
+					resN.set(resPt[0], resPt[1]);
+
+					AxisAngle resAa = new AxisAngle();
+					resAa.set(resN, resPt[2]);
+
+					Matrix3x3 resM = new Matrix3x3();
+					resM.set(resAa);
+
+					UnitVector resM1 = new UnitVector();
+					resM1.set(atan(
+						-1d / (
+							tan(resPt[0]) * (cos(resPt[1]) * cos(resPt[3]) + sin(resPt[1]) * sin(resPt[3]))
+						)
+					), resPt[3]);
+
+					C1tilt = C1;
+					C2tilt = C2;
+					equivalentForTilt = B;
+					nearestTilt = frame.fromFrame(new InterfaceMatrix(resM, resM1));
+					tiltT = transpose;
+					tiltMinus = minus;
+				}
+			}
+			return distVal;
+		}
+
+		private double minimizeTwist(int index) {
+
+			boolean transpose = equivalents.transposed(index);
+			boolean minus = equivalents.inverted(index);
+			Matrix3x3 C1 = equivalents.C1(index);
+			Matrix3x3 C2 = equivalents.C2(index);
+
+			InterfaceMatrix B = equivalents.matrices[index];
+			AxisAngle aa = equivalents.axisAngles[index];
+
+			if (twistSymmetricSolvers) {
+				AMDistanceToTwistSolver solver = new AMDistanceToTwistSolver(B);
+				double distVal = solver.minimize();
+				objectiveEvaluations += solver.evaluations();
+				iterations += solver.iterations();
+
+				if (precedes(distVal, index, nearestTwistDist, twistIndex)) {
+					nearestTwistDist = distVal;
+					twistIndex = index;
+					if (saveDetails) {
+						equivalentForTwist = B;
+						nearestTwist = solver.nearest();
+						C1twist = C1;
+						C2twist = C2;
+						twistT = transpose;
+						twistMinus = minus;
+					}
+				}
+				return distVal;
+			}
+
+			Frame frame = frame(aa.axis(), Frame.AXIAL_ZENITH);
+			InterfaceMatrix Bframe = frame.toFrame(B);
+			UnitVector axis = frame.toFrame(aa.axis());
+
+			AMDistanceToTwistPositiveAxis distPos = new AMDistanceToTwistPositiveAxis(Bframe);
+			AMDistanceToTwistNegativeAxis distNeg = new AMDistanceToTwistNegativeAxis(Bframe);
+
+			PointValuePair minimumPos = optimize(distPos, distPos.gradient(),
+				new double[]{axis.zenith(), axis.azimuth(), aa.angle()});
+			PointValuePair minimumNeg = optimize(distNeg, distNeg.gradient(),
+				new double[]{axis.zenith(), axis.azimuth(), aa.angle()});
+
+			double distValPos = minimumPos.getValue();
+			double distValNeg = minimumNeg.getValue();
+
+			double[] resultPos = minimumPos.getPoint();
+			double[] resultNeg = minimumNeg.getPoint();
+
+			if (precedes(distValPos, index, nearestTwistDist, twistIndex)) {
+				nearestTwistDist = distValPos;
+				twistIndex = index;
+				if (saveDetails) {
+
+					UnitVector resN = new UnitVector();
+					resN.set(resultPos[0], resultPos[1]);
+
+					AxisAngle resAa = new AxisAngle();
+					resAa.set(resN, resultPos[2]);
+
+					Matrix3x3 resM = new Matrix3x3();
+					resM.set(resAa);
+
+					equivalentForTwist = B;
+					nearestTwist = frame.fromFrame(new InterfaceMatrix(resM, resN));
+					C1twist = C1;
+					C2twist = C2;
+					twistT = transpose;
+					twistMinus = minus;
+				}
+			}
+
+			if (precedes(distValNeg, index, nearestTwistDist, twistIndex)) {
+				nearestTwistDist = distValNeg;
+				twistIndex = index;
+				if (saveDetails) {
+
+					UnitVector resN = new UnitVector();
+					resN.set(resultNeg[0], resultNeg[1]);
+
+					AxisAngle resAa = new AxisAngle();
+					resAa.set(resN, resultNeg[2]);
+
+					Matrix3x3 resM = new Matrix3x3();
+					resM.set(resAa);
+
+					resN.negate();
+
+					equivalentForTwist = B;
+					nearestTwist = frame.fromFrame(new InterfaceMatrix(resM, resN));
+					C1twist = C1;
+					C2twist = C2;
+					twistT = transpose;
+					twistMinus = minus;
+				}
+			}
+			return Math.min(distValPos, distValNeg);
+		}
+
+		private double minimizeSymmetric(int index) {
+
+			boolean transpose = equivalents.transposed(index);
+			boolean minus = equivalents.inverted(index);
+			Matrix3x3 C1 = equivalents.C1(index);
+			Matrix3x3 C2 = equivalents.C2(index);
+
+			InterfaceMatrix B = equivalents.matrices[index];
+			AxisAngle aa = equivalents.axisAngles[index];
+
+			if (twistSymmetricSolvers) {
+				AMDistanceToSymmetricSolver solver = new AMDistanceToSymmetricSolver(B);
+				double distVal = solver.minimize();
+				objectiveEvaluations += solver.evaluations();
+				iterations += solver.iterations();
+
+				if (precedes(distVal, index, nearestSymDist, symmetricIndex)) {
+					nearestSymDist = distVal;
+					symmetricIndex = index;
+					if (saveDetails) {
+						equivalentForSymmetric = B;
+						nearestSymmetric = solver.nearest();
+						C1symmetric = C1;
+						C2symmetric = C2;
+						symmetricT = transpose;
+						symmetricMinus = minus;
+					}
+				}
+				return distVal;
+			}
+
+			Frame frame = frame(aa.axis(), Frame.AXIAL_ZENITH);
+			InterfaceMatrix Bframe = frame.toFrame(B);
+			UnitVector axis = frame.toFrame(aa.axis());
+
+			AMDistanceToSymmetricPositiveAxis distPos = new AMDistanceToSymmetricPositiveAxis(Bframe);
+			AMDistanceToSymmetricNegativeAxis distNeg = new AMDistanceToSymmetricNegativeAxis(Bframe);
+
+			PointValuePair minimumPos = optimize(distPos, distPos.gradient(),
+				new double[]{axis.zenith(), axis.azimuth()});
+			PointValuePair minimumNeg = optimize(distNeg, distNeg.gradient(),
+				new double[]{axis.zenith(), axis.azimuth()});
+
+			double distValPos = minimumPos.getValue();
+			double distValNeg = minimumNeg.getValue();
+
+			double[] resultPos = minimumPos.getPoint();
+			double[] resultNeg = minimumNeg.getPoint();
+
+			if (precedes(distValPos, index, nearestSymDist, symmetricIndex)) {
+
+				nearestSymDist = distValPos;
+				symmetricIndex = index;
+
+				if (saveDetails) {
+
+					UnitVector resN = new UnitVector();
+					resN.set(resultPos[0], resultPos[1]);
+
+					AxisAngle resAa = new AxisAngle();
+					resAa.set(resN, PI);
+
+					Matrix3x3 resM = new Matrix3x3();
+					resM.set(resAa);
+
+					equivalentForSymmetric = B;
+					nearestSymmetric = frame.fromFrame(new InterfaceMatrix(resM, resN));
+					C1symmetric = C1;
+					C2symmetric = C2;
+					symmetricT = transpose;
+					symmetricMinus = minus;
+				}
+			}
+
+			if (precedes(distValNeg, index, nearestSymDist, symmetricIndex)) {
+
+				nearestSymDist = distValNeg;
+				symmetricIndex = index;
+
+				if (saveDetails) {
+
+					UnitVector resN = new UnitVector();
+					resN.set(resultNeg[0], resultNeg[1]);
+
+					AxisAngle resAa = new AxisAngle();
+					resAa.set(resN, PI);
+
+					Matrix3x3 resM = new Matrix3x3();
+					resM.set(resAa);
+
+					resN.negate();
+
+					equivalentForSymmetric = B;
+					nearestSymmetric = frame.fromFrame(new InterfaceMatrix(resM, resN));
+					C1symmetric = C1;
+					C2symmetric = C2;
+					symmetricT = transpose;
+					symmetricMinus = minus;
+				}
+			}
+			return Math.min(distValPos, distValNeg);
+		}
+
+		private double minimizeTilt180(int index) {
+
+			boolean transpose = equivalents.transposed(index);
+			boolean minus = equivalents.inverted(index);
+			Matrix3x3 C1 = equivalents.C1(index);
+			Matrix3x3 C2 = equivalents.C2(index);
+
+			InterfaceMatrix B = equivalents.matrices[index];
+			AxisAngle aa = equivalents.axisAngles[index];
+
+			Frame frame = frame(aa.axis(), Frame.TILT_ZENITH);
+			InterfaceMatrix Bframe = frame.toFrame(B);
+			UnitVector axis = frame.toFrame(aa.axis());
+
+			AMDistanceToTilt180 dist = new AMDistanceToTilt180(Bframe);
+
+			PointValuePair minimum = optimize(dist, dist.gradient(),
+				new double[]{axis.zenith(), axis.azimuth(), Bframe.m1().azimuth()});
+
+			double distVal = minimum.getValue();
+			double[] resPt = minimum.getPoint();
+
+			if (precedes(distVal, index, nearestTilt180Dist, tilt180Index)) {
+
+				nearestTilt180Dist = distVal;
+				tilt180Index = index;
+
+				if (saveDetails) {
+
+					UnitVector resN = new UnitVector();
+					resN.set(resPt[0], resPt[1]);
+
+					AxisAngle resAa = new AxisAngle();
+					resAa.set(resN, PI);
+
+					Matrix3x3 resM = new Matrix3x3();
+					resM.set(resAa);
+
+					UnitVector resM1 = new UnitVector();
+					resM1.set(atan(-1d / (tan(resPt[0]) * (cos(resPt[1]) * cos(resPt[2]) + sin(resPt[1]) * sin(resPt[2])))), resPt[2]);
+
+					equivalentForTilt180 = B;
+					nearestTilt180 = frame.fromFrame(new InterfaceMatrix(resM, resM1));
+					C1tilt180 = C1;
+					C2twist180 = C2;
+					tilt180T = transpose;
+					tilt180Minus = minus;
+				}
+			}
+			return distVal;
+		}
+
+		// the inexpensive characteristics of equivalents [from, to), i.e., everything except the AM distances
+		Characterization visit(int from, int to) {
+
+            boolean timed = nonNull(metrics);
+            long aprxNanos = 0L;
+            long decomposeNanos = 0L;
+            long cslNanos = 0L;
+
+            for (int index = from; index < to; index++) {
+
+                InterfaceMatrix B = equivalents.matrices[index];
+                AxisAngle aa = equivalents.axisAngles[index];
+
+                long start = timed ? System.nanoTime() : 0L;
+                if (computeAprxDistances) {
+                    double alpha = SaferMath.acos(Math.abs(aa.axis().dot(B.m1())));
+                    double ninetyMinAlpha = Math.toRadians(90d) - alpha;
+
+                    double deltaOmega = PI - aa.angle();
+
+                    deltaOmega = deltaOmega * deltaOmega;
+
+                    double alphaScandSq = alpha * alpha + deltaOmega;
+                    double alphaIcandSq = ninetyMinAlpha * ninetyMinAlpha + deltaOmega;
+
+                    if (ninetyMinAlpha < aprxTiltDist) aprxTiltDist = ninetyMinAlpha;
+
+                    if (alpha < aprxTwistDist) aprxTwistDist = alpha;
+
+                    if (alphaScandSq < aprxSymmetricDist) aprxSymmetricDist = alphaScandSq;
+                    if (alphaIcandSq < aprxTilt180Dist) aprxTilt180Dist = alphaIcandSq;
+                }
+
+                long aprxEnd = timed ? System.nanoTime() : 0L;
+                if (decompose) {
+                    double dot = aa.axis().dot(B.m1());
+                    double Phi;
+                    double omega;
+
+                    if (Math.abs(dot) < 1e-3d) {
+                        Phi = 0d;
+                        omega = aa.angle();
+                    } else {
+                        double alpha = SaferMath.acos(aa.axis().dot(B.m1()));
+                        double tg = tan(alpha);
+                        double cos = cos(0.5d * aa.angle());
+
+                        Phi = FastMath.asin(sin(0.5d * aa.angle()) / Math.sqrt(1d + tg * tg * cos * cos));
+                        omega = FastMath.asin(sin(alpha) * sin(0.5d * aa.angle()));
+
+                        Phi = 2d * Phi;
+                        omega = 2d * omega;
+                    }
+
+                    if (Phi < minimumTwistAngle) {
+                        minimumTwistAngle = Phi;
+                    }
+
+                    if (omega < minimumTiltAngle) {
+                        minimumTiltAngle = omega;
+                    }
+                }
+
+                long decomposeEnd = timed ? System.nanoTime() : 0L;
+                if (checkIfCSL) {
+
+                    for (CSLMisorientation csl : cslMisorientations) {
+
+                        Matrix3x3 M = new Matrix3x3(B.M());
+                        M.timesTransposed(csl.getM());
+
+                        double angle = SaferMath.acos(0.5 * (M.tr() - 1));
+
+                        if (angle < omega0 / pow(csl.getSigma(), p)) {
+
+                            lowestSigma = csl;
+                            lowestSigmaIndex = index;
+                            break;
+                        }
+                    }
+                }
+
+                if (timed) {
+                    long cslEnd = System.nanoTime();
+                    aprxNanos += aprxEnd - start;
+                    decomposeNanos += decomposeEnd - aprxEnd;
+                    cslNanos += cslEnd - decomposeEnd;
+                }
+
+
+                if (Math.abs(B.m1().x() - Binit.m1().x()) < 1e-3d
+                    && Math.abs(B.m1().y() - Binit.m1().y()) < 1e-3d
+                    && Math.abs(B.m1().z() - Binit.m1().z()) < 1e-3d
+                    && Math.abs(B.M().e00() - Binit.M().e00()) < 1e-3d &&
+                    Math.abs(B.M().e01() - Binit.M().e01()) < 1e-3d &&
+                    Math.abs(B.M().e02() - Binit.M().e02()) < 1e-3d &&
+
+                    Math.abs(B.M().e10() - Binit.M().e10()) < 1e-3d &&
+                    Math.abs(B.M().e11() - Binit.M().e11()) < 1e-3d &&
+                    Math.abs(B.M().e12() - Binit.M().e12()) < 1e-3d &&
+
+                    Math.abs(B.M().e20() - Binit.M().e20()) < 1e-3d &&
+                    Math.abs(B.M().e21() - Binit.M().e21()) < 1e-3d &&
+                    Math.abs(B.M().e22() - Binit.M().e22()) < 1e-3d
+                ) {
+
+
+                    multiplicity++;
+                }
+            }
+
+            if (timed) {
+                if (computeAprxDistances) {
+                    metrics.phaseCompleted(CharacterizationPhase.APPROXIMATE_DISTANCES, aprxNanos);
+                }
+                if (decompose) {
+                    metrics.phaseCompleted(CharacterizationPhase.DECOMPOSITION, decomposeNanos);
+                }
+                if (checkIfCSL) {
+                    metrics.phaseCompleted(CharacterizationPhase.CSL_CHECK, cslNanos);
+                }
+            }
+            return this;
+		}
+
+		// folds in the results of another part of the same equivalents
+		Characterization merge(Characterization other) {
+
+			if (precedes(other.nearestTiltDist, other.tiltIndex, nearestTiltDist, tiltIndex)) {
+				nearestTiltDist = other.nearestTiltDist;
+				tiltIndex = other.tiltIndex;
+				equivalentForTilt = other.equivalentForTilt;
+				nearestTilt = other.nearestTilt;
+				C1tilt = other.C1tilt;
+				C2tilt = other.C2tilt;
+				tiltT = other.tiltT;
+				tiltMinus = other.tiltMinus;
+			}
+
+			if (precedes(other.nearestTwistDist, other.twistIndex, nearestTwistDist, twistIndex)) {
+				nearestTwistDist = other.nearestTwistDist;
+				twistIndex = other.twistIndex;
+				equivalentForTwist = other.equivalentForTwist;
+				nearestTwist = other.nearestTwist;
+				C1twist = other.C1twist;
+				C2twist = other.C2twist;
+				twistT = other.twistT;
+				twistMinus = other.twistMinus;
+			}
+
+			if (precedes(other.nearestSymDist, other.symmetricIndex, nearestSymDist, symmetricIndex)) {
+				nearestSymDist = other.nearestSymDist;
+				symmetricIndex = other.symmetricIndex;
+				equivalentForSymmetric = other.equivalentForSymmetric;
+				nearestSymmetric = other.nearestSymmetric;
+				C1symmetric = other.C1symmetric;
+				C2symmetric = other.C2symmetric;
+				symmetricT = other.symmetricT;
+				symmetricMinus = other.symmetricMinus;
+			}
+
+			if (precedes(other.nearestTilt180Dist, other.tilt180Index, nearestTilt180Dist, tilt180Index)) {
+				nearestTilt180Dist = other.nearestTilt180Dist;
+				tilt180Index = other.tilt180Index;
+				equivalentForTilt180 = other.equivalentForTilt180;
+				nearestTilt180 = other.nearestTilt180;
+				C1tilt180 = other.C1tilt180;
+				C2twist180 = other.C2twist180;
+				tilt180T = other.tilt180T;
+				tilt180Minus = other.tilt180Minus;
+			}
+
+			minimumTwistAngle = Math.min(minimumTwistAngle, other.minimumTwistAngle);
+			minimumTiltAngle = Math.min(minimumTiltAngle, other.minimumTiltAngle);
+
+			aprxTwistDist = Math.min(aprxTwistDist, other.aprxTwistDist);
+			aprxTiltDist = Math.min(aprxTiltDist, other.aprxTiltDist);
+			aprxSymmetricDist = Math.min(aprxSymmetricDist, other.aprxSymmetricDist);
+			aprxTilt180Dist = Math.min(aprxTilt180Dist, other.aprxTilt180Dist);
+
+			// the sequential scan keeps the CSL match of the last matching equivalent
+			if (other.lowestSigmaIndex > lowestSigmaIndex) {
+				lowestSigma = other.lowestSigma;
+				lowestSigmaIndex = other.lowestSigmaIndex;
+			}
+
+			multiplicity += other.multiplicity;
+
+			objectiveEvaluations += other.objectiveEvaluations;
+			gradientEvaluations += other.gradientEvaluations;
+
+			approximate |= other.approximate;
+			return this;
+		}
+
+		private BoundaryCharacteristics toCharacteristics() {
+			BoundaryCharacteristics.BoundaryCharacteristicsBuilder builder = BoundaryCharacteristics.builder()
+				.binit(Binit)
+				.multiplicity(multiplicity)
+				.objectiveEvaluations(objectiveEvaluations)
+				.gradientEvaluations(gradientEvaluations)
+				.approximate(approximate)
+				.minimumSigma(nonNull(lowestSigma) ? lowestSigma.getSigma() : 0);
+
+			if (computeAMTiltDist) {
+				builder.tilt(NearestBoundary.builder()
+					.distance(Math.sqrt(nearestTiltDist))
+					.equivalent(equivalentForTilt)
+					.nearest(nearestTilt)
+					.C1(C1tilt)
+					.C2(C2tilt)
+					.transposed(tiltT)
+					.inverted(tiltMinus)
+					.build());
+			}
+			if (computeAMTwistDist) {
+				builder.twist(NearestBoundary.builder()
+					.distance(Math.sqrt(nearestTwistDist))
+					.equivalent(equivalentForTwist)
+					.nearest(nearestTwist)
+					.C1(C1twist)
+					.C2(C2twist)
+					.transposed(twistT)
+					.inverted(twistMinus)
+					.build());
+			}
+			if (computeAMSymmetricDist) {
+				builder.symmetric(NearestBoundary.builder()
+					.distance(Math.sqrt(nearestSymDist))
+					.equivalent(equivalentForSymmetric)
+					.nearest(nearestSymmetric)
+					.C1(C1symmetric)
+					.C2(C2symmetric)
+					.transposed(symmetricT)
+					.inverted(symmetricMinus)
+					.build());
+			}
+			if (computeAMTilt180Dist) {
+				builder.tilt180(NearestBoundary.builder()
+					.distance(Math.sqrt(nearestTilt180Dist))
+					.equivalent(equivalentForTilt180)
+					.nearest(nearestTilt180)
+					.C1(C1tilt180)
+					.C2(C2twist180)
+					.transposed(tilt180T)
+					.inverted(tilt180Minus)
+					.build());
+			}
+			if (decompose) {
+				builder.minimumTiltAngle(minimumTiltAngle)
+					.minimumTwistAngle(minimumTwistAngle);
+			}
+			if (computeAprxDistances) {
+				builder.aprxTiltDist(aprxTiltDist)
+					.aprxTwistDist(aprxTwistDist)
+					.aprxSymmetricDist(Math.sqrt(aprxSymmetricDist))
+					.aprxTilt180Dist(Math.sqrt(aprxTilt180Dist));
+			}
+			return builder.build();
+		}
 	}
 }
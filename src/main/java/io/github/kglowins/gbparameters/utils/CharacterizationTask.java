@@ -0,0 +1,41 @@
+package io.github.kglowins.gbparameters.utils;
+
+import io.github.kglowins.gbparameters.representation.InterfaceMatrix;
+
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+final class CharacterizationTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int LEAF_SIZE = 1;
+
+    private final CharacterizerConfig config;
+    private final List<InterfaceMatrix> boundaries;
+    private final BoundaryCharacteristics[] results;
+    private final int from;
+    private final int to;
+
+    CharacterizationTask(CharacterizerConfig config, List<InterfaceMatrix> boundaries,
+                         BoundaryCharacteristics[] results, int from, int to) {
+        this.config = config;
+        this.boundaries = boundaries;
+        this.results = results;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= LEAF_SIZE) {
+            for (int i = from; i < to; i++) {
+                results[i] = BoundaryCharacterizer.characterize(boundaries.get(i), config);
+            }
+        } else {
+            int mid = (from + to) >>> 1;
+            invokeAll(new CharacterizationTask(config, boundaries, results, from, mid),
+                new CharacterizationTask(config, boundaries, results, mid, to));
+        }
+    }
+}
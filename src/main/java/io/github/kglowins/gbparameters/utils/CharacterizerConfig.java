@@ -0,0 +1,124 @@
+package io.github.kglowins.gbparameters.utils;
+
+import io.github.kglowins.gbparameters.enums.AccuracyProfile;
+import io.github.kglowins.gbparameters.enums.MinimizationMode;
+import io.github.kglowins.gbparameters.enums.PointGroup;
+import io.github.kglowins.gbparameters.representation.CSLMisorientation;
+import io.github.kglowins.gbparameters.representation.Matrix3x3;
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder(toBuilder = true)
+public class CharacterizerConfig {
+
+    private boolean includeTransposition;
+    private boolean includeInversion;
+    private Matrix3x3[] symmetryTransformations;
+
+    private boolean computeAMTiltDist;
+    private boolean computeAMTwistDist;
+    private boolean computeAMSymmetricDist;
+    private boolean computeAMTilt180Dist;
+
+    private boolean decompose;
+
+    private boolean checkIfCSL;
+    private double p;
+    private double omega0;
+    private CSLMisorientation[] cslMisorientations;
+
+    private boolean computeAprxDistances;
+
+    private boolean saveDetails;
+
+    private boolean twistSymmetricSolvers;
+    private MinimizationMode minimizationMode;
+    private AccuracyProfile accuracyProfile;
+
+    private CharacterizerMetrics metrics;
+
+    private boolean parallelEquivalents;
+    private boolean deduplicateEquivalents;
+    private boolean pruneEquivalents;
+
+    // copies, so that a config shared by worker threads cannot be changed through the arrays
+    public Matrix3x3[] getSymmetryTransformations() {
+        return copyOf(symmetryTransformations);
+    }
+
+    public CSLMisorientation[] getCslMisorientations() {
+        return copyOf(cslMisorientations);
+    }
+
+    private static Matrix3x3[] copyOf(Matrix3x3[] matrices) {
+        if (matrices == null) {
+            return null;
+        }
+        Matrix3x3[] copy = new Matrix3x3[matrices.length];
+        for (int i = 0; i < matrices.length; i++) {
+            copy[i] = new Matrix3x3(matrices[i]);
+        }
+        return copy;
+    }
+
+    private static CSLMisorientation[] copyOf(CSLMisorientation[] misorientations) {
+        if (misorientations == null) {
+            return null;
+        }
+        CSLMisorientation[] copy = new CSLMisorientation[misorientations.length];
+        for (int i = 0; i < misorientations.length; i++) {
+            copy[i] = new CSLMisorientation(new Matrix3x3(misorientations[i].getM()), misorientations[i].getSigma());
+        }
+        return copy;
+    }
+
+    public static CharacterizerConfigBuilder builder() {
+        return new CharacterizerConfigBuilder()
+            .includeTransposition(true)
+            .includeInversion(true)
+            .deduplicateEquivalents(true)
+            .pruneEquivalents(true)
+            .minimizationMode(MinimizationMode.SIMPLEX)
+            .accuracyProfile(AccuracyProfile.DEFAULT)
+            .p(0.5d)
+            .omega0(Math.toRadians(15d));
+    }
+
+    public static class CharacterizerConfigBuilder {
+
+        public CharacterizerConfigBuilder symmetryTransformations(Matrix3x3[] symmetryTransformations) {
+            this.symmetryTransformations = copyOf(symmetryTransformations);
+            return this;
+        }
+
+        public CharacterizerConfigBuilder cslMisorientations(CSLMisorientation[] cslMisorientations) {
+            this.cslMisorientations = copyOf(cslMisorientations);
+            return this;
+        }
+
+        public CharacterizerConfigBuilder symmetry(PointGroup pointGroup) {
+            return symmetryTransformations(Transformations.getSymmetryTransformations(pointGroup));
+        }
+
+        public CharacterizerConfigBuilder computeAMDistances(boolean toTilt, boolean toTwist, boolean toSymmetric,
+                                                             boolean toTilt180) {
+            return computeAMTiltDist(toTilt)
+                .computeAMTwistDist(toTwist)
+                .computeAMSymmetricDist(toSymmetric)
+                .computeAMTilt180Dist(toTilt180);
+        }
+
+        public CharacterizerConfigBuilder checkIfCSL(boolean checkIfCSL) {
+            this.checkIfCSL = checkIfCSL;
+            return this;
+        }
+
+        public CharacterizerConfigBuilder checkIfCSL(double p, double omega0, CSLMisorientation[] cslMisorientations) {
+            return checkIfCSL(true)
+                .p(p)
+                .omega0(omega0)
+                .cslMisorientations(cslMisorientations);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package io.github.kglowins.gbparameters.utils;
+
+import io.github.kglowins.gbparameters.enums.BoundaryType;
+import io.github.kglowins.gbparameters.enums.CharacterizationPhase;
+
+/*
+ * Listener for the work done by BoundaryCharacterizer. It is called from every thread that takes part in
+ * a characterization, so implementations must be thread-safe; the times are summed over those threads.
+ */
+public interface CharacterizerMetrics {
+
+    void boundaryCharacterized(long nanos);
+
+    void phaseCompleted(CharacterizationPhase phase, long nanos);
+
+    // one AM-distance minimization for a single equivalent
+    void minimized(BoundaryType type, long nanos, long objectiveEvaluations, long iterations);
+
+    // equivalents skipped as duplicates or by the lower bounds
+    void equivalentsSkipped(BoundaryType type, int count);
+}
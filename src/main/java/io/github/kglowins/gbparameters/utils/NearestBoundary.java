@@ -0,0 +1,66 @@
+package io.github.kglowins.gbparameters.utils;
+
+import io.github.kglowins.gbparameters.representation.InterfaceMatrix;
+import io.github.kglowins.gbparameters.representation.Matrix3x3;
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class NearestBoundary {
+    private double distance;
+    private InterfaceMatrix equivalent;
+    private InterfaceMatrix nearest;
+    private Matrix3x3 C1;
+    private Matrix3x3 C2;
+    private boolean transposed;
+    private boolean inverted;
+
+    // copies, as InterfaceMatrix and Matrix3x3 are mutable
+    public InterfaceMatrix getEquivalent() {
+        return copyOf(equivalent);
+    }
+
+    public InterfaceMatrix getNearest() {
+        return copyOf(nearest);
+    }
+
+    public Matrix3x3 getC1() {
+        return copyOf(C1);
+    }
+
+    public Matrix3x3 getC2() {
+        return copyOf(C2);
+    }
+
+    private static InterfaceMatrix copyOf(InterfaceMatrix B) {
+        return B != null ? new InterfaceMatrix(B) : null;
+    }
+
+    private static Matrix3x3 copyOf(Matrix3x3 M) {
+        return M != null ? new Matrix3x3(M) : null;
+    }
+
+    public static class NearestBoundaryBuilder {
+
+        public NearestBoundaryBuilder equivalent(InterfaceMatrix equivalent) {
+            this.equivalent = copyOf(equivalent);
+            return this;
+        }
+
+        public NearestBoundaryBuilder nearest(InterfaceMatrix nearest) {
+            this.nearest = copyOf(nearest);
+            return this;
+        }
+
+        public NearestBoundaryBuilder C1(Matrix3x3 C1) {
+            this.C1 = copyOf(C1);
+            return this;
+        }
+
+        public NearestBoundaryBuilder C2(Matrix3x3 C2) {
+            this.C2 = copyOf(C2);
+            return this;
+        }
+    }
+}
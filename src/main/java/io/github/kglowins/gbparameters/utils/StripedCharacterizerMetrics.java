@@ -0,0 +1,128 @@
+package io.github.kglowins.gbparameters.utils;
+
+import io.github.kglowins.gbparameters.enums.BoundaryType;
+import io.github.kglowins.gbparameters.enums.CharacterizationPhase;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class StripedCharacterizerMetrics implements CharacterizerMetrics {
+
+    private final LongAdder boundaries = new LongAdder();
+    private final LongAdder boundaryNanos = new LongAdder();
+
+    private final LongAdder[] phaseNanos = adders(CharacterizationPhase.values().length);
+
+    private final LongAdder[] minimizationNanos = adders(BoundaryType.values().length);
+    private final LongAdder[] minimizations = adders(BoundaryType.values().length);
+    private final LongAdder[] objectiveEvaluations = adders(BoundaryType.values().length);
+    private final LongAdder[] iterations = adders(BoundaryType.values().length);
+    private final LongAdder[] skipped = adders(BoundaryType.values().length);
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    @Override
+    public void boundaryCharacterized(long nanos) {
+        boundaries.increment();
+        boundaryNanos.add(nanos);
+    }
+
+    @Override
+    public void phaseCompleted(CharacterizationPhase phase, long nanos) {
+        phaseNanos[phase.ordinal()].add(nanos);
+    }
+
+    @Override
+    public void minimized(BoundaryType type, long nanos, long objectiveEvaluations, long iterations) {
+        int i = type.ordinal();
+        minimizationNanos[i].add(nanos);
+        minimizations[i].increment();
+        this.objectiveEvaluations[i].add(objectiveEvaluations);
+        this.iterations[i].add(iterations);
+        phaseNanos[CharacterizationPhase.MINIMIZATION.ordinal()].add(nanos);
+    }
+
+    @Override
+    public void equivalentsSkipped(BoundaryType type, int count) {
+        skipped[type.ordinal()].add(count);
+    }
+
+    public long getBoundaries() {
+        return boundaries.sum();
+    }
+
+    public long getBoundaryNanos() {
+        return boundaryNanos.sum();
+    }
+
+    public long getPhaseNanos(CharacterizationPhase phase) {
+        return phaseNanos[phase.ordinal()].sum();
+    }
+
+    public long getMinimizationNanos(BoundaryType type) {
+        return minimizationNanos[type.ordinal()].sum();
+    }
+
+    // equivalents for which the minimization was run
+    public long getEquivalentsVisited(BoundaryType type) {
+        return minimizations[type.ordinal()].sum();
+    }
+
+    public long getEquivalentsSkipped(BoundaryType type) {
+        return skipped[type.ordinal()].sum();
+    }
+
+    public long getObjectiveEvaluations(BoundaryType type) {
+        return objectiveEvaluations[type.ordinal()].sum();
+    }
+
+    public long getIterations(BoundaryType type) {
+        return iterations[type.ordinal()].sum();
+    }
+
+    public void reset() {
+        boundaries.reset();
+        boundaryNanos.reset();
+        for (LongAdder adder : phaseNanos) {
+            adder.reset();
+        }
+        for (BoundaryType type : BoundaryType.values()) {
+            int i = type.ordinal();
+            minimizationNanos[i].reset();
+            minimizations[i].reset();
+            objectiveEvaluations[i].reset();
+            iterations[i].reset();
+            skipped[i].reset();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("boundaries: ").append(getBoundaries())
+            .append(", ").append(millis(getBoundaryNanos())).append(" ms\n");
+        for (CharacterizationPhase phase : CharacterizationPhase.values()) {
+            sb.append(phase).append(": ").append(millis(getPhaseNanos(phase))).append(" ms\n");
+        }
+        for (BoundaryType type : BoundaryType.values()) {
+            sb.append(type)
+                .append(": ").append(millis(getMinimizationNanos(type))).append(" ms")
+                .append(", visited ").append(getEquivalentsVisited(type))
+                .append(", skipped ").append(getEquivalentsSkipped(type))
+                .append(", evaluations ").append(getObjectiveEvaluations(type))
+                .append(", iterations ").append(getIterations(type))
+                .append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
@@ -0,0 +1,292 @@
+package io.github.kglowins.gbparameters.utils;
+
+import io.github.kglowins.gbparameters.enums.PointGroup;
+import io.github.kglowins.gbparameters.representation.Matrix3x3;
+import io.github.kglowins.gbparameters.representation.Quaternion;
+import io.github.kglowins.gbparameters.representation.SignedPermutation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * The symmetry operators of a point group in the order of Transformations.getSymmetryTransformations, built
+ * once per group and shared: the matrices and their transposes, their entries row by row (9 per operator) and
+ * their quaternions (4 per operator). The Matrix3x3 accessors hand out copies; kernels that go over the
+ * operators on every call read them through entry(k, i, j) and quaternion(k, i) instead.
+ *
+ * Operators are also numbered, with the multiplication (Cayley) table, the inverses and the conjugacy classes
+ * tabulated, so that composing and comparing them, closures, centralizers and cosets are integer lookups.
+ * Only indexOf compares matrices, with the tolerance of Matrix3x3.isEqualTo.
+ */
+public final class SymmetryTable {
+
+	private static final SymmetryTable[] TABLES = new SymmetryTable[PointGroup.values().length];
+
+	static {
+		for (PointGroup ptGrp : PointGroup.values()) {
+			TABLES[ptGrp.ordinal()] = new SymmetryTable(ptGrp);
+		}
+	}
+
+	private final PointGroup ptGrp;
+	private final Matrix3x3[] matrices;
+	private final Matrix3x3[] transposes;
+	private final double[] entries;
+	private final double[] quaternions;
+
+	// the operators as signed permutations, if they all are
+	private final SignedPermutation[] permutations;
+
+	private final int identity;
+
+	// index of C_a C_b at n a + b
+	private final int[] products;
+	private final int[] inverses;
+
+	// number of the conjugacy class of each operator, classes numbered in order of their first operator
+	private final int[] classes;
+	private final int[][] classMembers;
+
+	private SymmetryTable(PointGroup ptGrp) {
+		this.ptGrp = ptGrp;
+		matrices = Transformations.getSymmetryTransformations(ptGrp);
+		int n = matrices.length;
+
+		transposes = new Matrix3x3[n];
+		entries = new double[9 * n];
+		quaternions = new double[4 * n];
+		for (int k = 0; k < n; k++) {
+			Matrix3x3 C = matrices[k];
+			transposes[k] = new Matrix3x3(C);
+			transposes[k].transpose();
+			for (int i = 0; i < 3; i++) {
+				for (int j = 0; j < 3; j++) {
+					entries[9 * k + 3 * i + j] = C.get(i, j);
+				}
+			}
+			Quaternion.components(C, quaternions, 4 * k);
+		}
+		permutations = signedPermutations(matrices);
+
+		identity = indexOf(new Matrix3x3());
+		products = new int[n * n];
+		inverses = new int[n];
+		for (int a = 0; a < n; a++) {
+			for (int b = 0; b < n; b++) {
+				Matrix3x3 product = new Matrix3x3(matrices[a]);
+				product.times(matrices[b]);
+				int c = indexOf(product);
+				if (c < 0) {
+					throw new IllegalStateException("Operators of " + ptGrp + " are not closed under products");
+				}
+				products[n * a + b] = c;
+				if (c == identity) {
+					inverses[a] = b;
+				}
+			}
+		}
+
+		classes = new int[n];
+		Arrays.fill(classes, -1);
+		List<int[]> members = new ArrayList<>();
+		for (int a = 0; a < n; a++) {
+			if (classes[a] >= 0) {
+				continue;
+			}
+			boolean[] inClass = new boolean[n];
+			for (int g = 0; g < n; g++) {
+				inClass[conjugate(g, a)] = true;
+			}
+			int[] indices = indices(inClass);
+			for (int b : indices) {
+				classes[b] = members.size();
+			}
+			members.add(indices);
+		}
+		classMembers = members.toArray(new int[0][]);
+	}
+
+	public static SymmetryTable of(PointGroup ptGrp) {
+		return TABLES[ptGrp.ordinal()];
+	}
+
+	public PointGroup pointGroup() {
+		return ptGrp;
+	}
+
+	public int size() {
+		return matrices.length;
+	}
+
+	// copies of the operators in order, for for-each loops
+	public List<Matrix3x3> matrices() {
+		List<Matrix3x3> copies = new ArrayList<>(matrices.length);
+		for (Matrix3x3 C : matrices) {
+			copies.add(new Matrix3x3(C));
+		}
+		return copies;
+	}
+
+	public Matrix3x3 matrix(int k) {
+		return new Matrix3x3(matrices[k]);
+	}
+
+	public Matrix3x3 transposed(int k) {
+		return new Matrix3x3(transposes[k]);
+	}
+
+	// entry (i, j) of operator k
+	public double entry(int k, int i, int j) {
+		return entries[9 * k + 3 * i + j];
+	}
+
+	// component i of the quaternion of operator k
+	public double quaternion(int k, int i) {
+		return quaternions[4 * k + i];
+	}
+
+	// the operators as SignedPermutation, or null unless all of them are signed permutations (m-3m, 4/mmm, mmm, ...)
+	public static SignedPermutation[] signedPermutations(Matrix3x3[] operators) {
+		SignedPermutation[] permutations = new SignedPermutation[operators.length];
+		for (int k = 0; k < operators.length; k++) {
+			permutations[k] = SignedPermutation.of(operators[k]);
+			if (permutations[k] == null) {
+				return null;
+			}
+		}
+		return permutations;
+	}
+
+	public boolean isSignedPermutationGroup() {
+		return permutations != null;
+	}
+
+	// operator k as a signed permutation, or null if not all operators of the group are signed permutations
+	public SignedPermutation signedPermutation(int k) {
+		return permutations == null ? null : permutations[k];
+	}
+
+	// the index of the operator equal to M, or -1 if there is none
+	public int indexOf(Matrix3x3 M) {
+		for (int k = 0; k < matrices.length; k++) {
+			if (matrices[k].isEqualTo(M)) {
+				return k;
+			}
+		}
+		return -1;
+	}
+
+	public int identity() {
+		return identity;
+	}
+
+	// index of C_a C_b
+	public int product(int a, int b) {
+		return products[matrices.length * a + b];
+	}
+
+	public int inverse(int a) {
+		return inverses[a];
+	}
+
+	// index of C_g C_a C_g^T
+	public int conjugate(int g, int a) {
+		return product(product(g, a), inverses[g]);
+	}
+
+	public int conjugacyClass(int a) {
+		return classes[a];
+	}
+
+	public int conjugacyClassCount() {
+		return classMembers.length;
+	}
+
+	// the operators of conjugacy class c, in increasing order
+	public int[] conjugacyClassMembers(int c) {
+		return classMembers[c].clone();
+	}
+
+	// the subgroup generated by the operators, in increasing order
+	public int[] closure(int... generators) {
+		int n = matrices.length;
+		boolean[] inGroup = new boolean[n];
+		int[] queue = new int[n];
+		int count = 0;
+		inGroup[identity] = true;
+		queue[count++] = identity;
+		for (int head = 0; head < count; head++) {
+			int a = queue[head];
+			for (int g : generators) {
+				int b = product(a, g);
+				if (!inGroup[b]) {
+					inGroup[b] = true;
+					queue[count++] = b;
+				}
+			}
+		}
+		return indices(inGroup);
+	}
+
+	// the operators that commute with C_a
+	public int[] centralizer(int a) {
+		boolean[] commutes = new boolean[matrices.length];
+		for (int g = 0; g < commutes.length; g++) {
+			commutes[g] = product(g, a) == product(a, g);
+		}
+		return indices(commutes);
+	}
+
+	// the left cosets C_g H of the subgroup H, each in increasing order, ordered by their first operator
+	public int[][] leftCosets(int[] subgroup) {
+		int n = matrices.length;
+		if (n % subgroup.length != 0) {
+			throw new IllegalArgumentException("Not a subgroup of " + ptGrp + ": " + Arrays.toString(subgroup));
+		}
+		int[][] cosets = new int[n / subgroup.length][];
+		boolean[] covered = new boolean[n];
+		int count = 0;
+		for (int g = 0; g < n; g++) {
+			if (covered[g]) {
+				continue;
+			}
+			if (count == cosets.length) {
+				throw new IllegalArgumentException("Not a subgroup of " + ptGrp + ": " + Arrays.toString(subgroup));
+			}
+			boolean[] inCoset = new boolean[n];
+			for (int h : subgroup) {
+				inCoset[product(g, h)] = true;
+				covered[product(g, h)] = true;
+			}
+			cosets[count++] = indices(inCoset);
+		}
+		return cosets;
+	}
+
+	private static int[] indices(boolean[] included) {
+		int count = 0;
+		for (boolean b : included) {
+			if (b) {
+				count++;
+			}
+		}
+		int[] indices = new int[count];
+		count = 0;
+		for (int k = 0; k < included.length; k++) {
+			if (included[k]) {
+				indices[count++] = k;
+			}
+		}
+		return indices;
+	}
+
+	// copies of the flat layouts, for kernels that keep their own arrays
+	public double[] entries() {
+		return entries.clone();
+	}
+
+	public double[] quaternions() {
+		return quaternions.clone();
+	}
+}
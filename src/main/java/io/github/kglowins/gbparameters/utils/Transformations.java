@@ -45,6 +45,7 @@ public class Transformations {
 	}
 		
 			
+	// new matrices on every call; getSymmetryTable shares one precomputed set per group
 	public final static Matrix3x3[] getSymmetryTransformations(PointGroup ptGrp) {
 		
 		Matrix3x3[] C;
@@ -338,5 +339,16 @@ public class Transformations {
 		return C;
 	}
 	
+	public final static SymmetryTable getSymmetryTable(PointGroup ptGrp) {
+		
+		return SymmetryTable.of(ptGrp);
+	}
+	
+	// quaternions of getSymmetryTransformations(ptGrp), packed as q0, q1, q2, q3 of each operator in turn
+	public final static double[] getSymmetryQuaternions(PointGroup ptGrp) {
+		
+		return getSymmetryTable(ptGrp).quaternions();
+	}
+	
 
 }